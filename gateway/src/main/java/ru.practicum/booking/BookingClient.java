@@ -8,9 +8,12 @@ import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.booking.dto.BookItemRequestDto;
+import ru.practicum.booking.dto.BookItemsRequestDto;
+import ru.practicum.booking.dto.BookingDecisionDto;
 import ru.practicum.booking.dto.BookingState;
 import ru.practicum.client.BaseClient;
 
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -32,6 +35,11 @@ public class BookingClient extends BaseClient {
         return post("", userId, requestDto);
     }
 
+    /* PostMapping("/bulk") */
+    public ResponseEntity<Object> bookItems(long userId, BookItemsRequestDto requestDto) {
+        return post("/bulk", userId, requestDto);
+    }
+
     /* PatchMapping("/{id}") */
     public ResponseEntity<Object> updateBooking(long userId, boolean approved, long id) {
         Map<String, Object> parameters = Map.of(
@@ -41,6 +49,11 @@ public class BookingClient extends BaseClient {
         return patch("/{id}?approved={approved}", userId, parameters, null);
     }
 
+    /* PatchMapping("/batch") */
+    public ResponseEntity<Object> updateBookings(long userId, List<BookingDecisionDto> decisions) {
+        return patch("/batch", userId, decisions);
+    }
+
     /* DeleteMapping("/{id}") */
     public ResponseEntity<Object> deleteBooking(long id) {
         Map<String, Object> parameters = Map.of("id", id);
@@ -48,13 +61,13 @@ public class BookingClient extends BaseClient {
     }
 
     /* GetMapping - бронирования конкретного юзера вклдчая статус */
-    public ResponseEntity<Object> getBookings(long userId, BookingState state, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
+    public ResponseEntity<Object> getBookings(long userId, BookingState state, Integer from, Integer size, String cursor) {
+        Map<String, Object> parameters = withCursor(Map.of(
                 "state", state.name(),
                 "from", from,
                 "size", size
-        );
-        return get("?state={state}&from={from}&size={size}", userId, parameters);
+        ), cursor);
+        return get("?state={state}&from={from}&size={size}" + cursorQuery(cursor), userId, parameters);
     }
 
     /* GetMapping("/{id}") - конкретное бронирование, включая статус */
@@ -64,12 +77,13 @@ public class BookingClient extends BaseClient {
     }
 
     /* GetMapping("/owner") - лист бронирования всех item текущего пользователя */
-    public ResponseEntity<Object> getBookingsForUser(long userId, BookingState state, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
+    public ResponseEntity<Object> getBookingsForUser(long userId, BookingState state, Integer from, Integer size,
+                                                     String cursor) {
+        Map<String, Object> parameters = withCursor(Map.of(
                 "state", state.name(),
                 "from", from,
                 "size", size
-        );
-        return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
+        ), cursor);
+        return get("/owner?state={state}&from={from}&size={size}" + cursorQuery(cursor), userId, parameters);
     }
 }
@@ -7,12 +7,17 @@ import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.booking.dto.BookItemRequestDto;
+import ru.practicum.booking.dto.BookItemsRequestDto;
+import ru.practicum.booking.dto.BookingDecisionDto;
 import ru.practicum.booking.dto.BookingState;
 import ru.practicum.exception.ErrorResponse;
 
 import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
+import java.util.List;
 
 @Controller
 @RequestMapping(path = "/bookings")
@@ -20,6 +25,8 @@ import javax.validation.constraints.PositiveOrZero;
 @Slf4j
 @Validated
 public class BookingController {
+    private static final int MAX_DECISIONS = 500;
+
     private final BookingClient bookingClient;
 
     @PostMapping
@@ -29,6 +36,14 @@ public class BookingController {
         return bookingClient.bookItem(userId, requestDto);
     }
 
+    /* бронирование нескольких вещей на одни даты: создаются все или ни одной */
+    @PostMapping("/bulk")
+    public ResponseEntity<Object> bookItems(@RequestHeader("X-Sharer-User-Id") long userId,
+                                            @RequestBody @Valid BookItemsRequestDto requestDto) {
+        log.info("Creating bookings of items {}, userId={}", requestDto.getItemIds(), userId);
+        return bookingClient.bookItems(userId, requestDto);
+    }
+
     @PatchMapping("/{id}")
     public ResponseEntity<Object> updateBooking(@RequestHeader("X-Sharer-User-Id") long userId, // владелец вещи
                                                 @PathVariable("id") long id, // бронь
@@ -36,6 +51,15 @@ public class BookingController {
         return bookingClient.updateBooking(userId, approved, id);
     }
 
+    /* решения по нескольким бронированиям владельца одним запросом */
+    @PatchMapping("/batch")
+    public ResponseEntity<Object> updateBookings(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                 @RequestBody @NotEmpty @Size(max = MAX_DECISIONS)
+                                                 List<@Valid BookingDecisionDto> decisions) {
+        log.info("Update {} bookings, userId={}", decisions.size(), userId);
+        return bookingClient.updateBookings(userId, decisions);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Object>  deleteBooking(@PathVariable("id") long id) {
         return bookingClient.deleteBooking(id);
@@ -49,7 +73,8 @@ public class BookingController {
                                               @PositiveOrZero @RequestParam(value = "from",
                                                       defaultValue = "0") Integer from,
                                               @Positive @RequestParam(value = "size",
-                                                      defaultValue = "10") Integer size) {
+                                                      defaultValue = "10") Integer size,
+                                              @RequestParam(value = "cursor", required = false) String cursor) {
         BookingState state = BookingState.from(stateParam)
                 .orElse(null);
         if (state == null) {
@@ -57,8 +82,8 @@ public class BookingController {
                     new ErrorResponse("Unknown state: " + stateParam)
             );
         }
-        log.info("Get booking with state {}, userId={}, from={}, size={}", stateParam, userId, from, size);
-        return bookingClient.getBookings(userId, state, from, size);
+        log.info("Get booking with state {}, userId={}, from={}, size={}, cursor={}", stateParam, userId, from, size, cursor);
+        return bookingClient.getBookings(userId, state, from, size, cursor);
     }
 
     /* конкретное бронирование, включая статус */
@@ -77,7 +102,8 @@ public class BookingController {
                                                              @PositiveOrZero @RequestParam(value = "from",
                                                                      defaultValue = "0") Integer from,
                                                              @Positive @RequestParam(value = "size",
-                                                                     defaultValue = "10") Integer size) {
+                                                                     defaultValue = "10") Integer size,
+                                                             @RequestParam(value = "cursor", required = false) String cursor) {
         BookingState state = BookingState.from(stateParam)
                 .orElse(null);
         if (state == null) {
@@ -85,7 +111,7 @@ public class BookingController {
                     new ErrorResponse("Unknown state: " + stateParam)
             );
         }
-        log.info("Get booking with state {}, userId={}, from={}, size={}", stateParam, userId, from, size);
-        return bookingClient.getBookingsForUser(userId, state, from, size);
+        log.info("Get booking with state {}, userId={}, from={}, size={}, cursor={}", stateParam, userId, from, size, cursor);
+        return bookingClient.getBookingsForUser(userId, state, from, size, cursor);
     }
 }
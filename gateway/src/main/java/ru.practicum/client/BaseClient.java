@@ -5,6 +5,7 @@ import org.springframework.lang.Nullable;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -81,6 +82,21 @@ public class BaseClient {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
+    /* необязательный курсор keyset-пагинации передаётся серверу как есть, токен следующей страницы
+     * возвращается в заголовке X-Next-Cursor вместе с ответом сервера */
+    protected static String cursorQuery(@Nullable String cursor) {
+        return cursor == null ? "" : "&cursor={cursor}";
+    }
+
+    protected static Map<String, Object> withCursor(Map<String, Object> parameters, @Nullable String cursor) {
+        if (cursor == null) {
+            return parameters;
+        }
+        Map<String, Object> result = new HashMap<>(parameters);
+        result.put("cursor", cursor);
+        return result;
+    }
+
     private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
         HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
 
@@ -10,6 +10,8 @@ import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.client.BaseClient;
 import ru.practicum.item.dto.ItemGatewayDto;
 
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.Map;
 
 @Service
@@ -44,12 +46,12 @@ public class ItemClient extends BaseClient {
     }
 
     /* GetMapping */
-    public ResponseEntity<Object> getItems(long userId, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
+    public ResponseEntity<Object> getItems(long userId, Integer from, Integer size, String cursor) {
+        Map<String, Object> parameters = withCursor(Map.of(
                 "from", from,
                 "size", size
-        );
-        return get("?from={from}&size={size}", userId, parameters);
+        ), cursor);
+        return get("?from={from}&size={size}" + cursorQuery(cursor), userId, parameters);
     }
 
     /* GetMapping("/{id}") */
@@ -58,13 +60,43 @@ public class ItemClient extends BaseClient {
         return get("/{id}", userId, parameters);
     }
 
-    /* GetMapping("/{search}") */
-    public ResponseEntity<Object> getSearchItem(String query, Integer from, Integer size) {
+    /* GetMapping("/{id}/availability") */
+    public ResponseEntity<Object> getAvailability(long id, LocalDateTime from, LocalDateTime to) {
         Map<String, Object> parameters = Map.of(
+                "id", id,
+                "from", from,
+                "to", to
+        );
+        return get("/{id}/availability?from={from}&to={to}", null, parameters);
+    }
+
+    /* GetMapping("/{search}") */
+    public ResponseEntity<Object> getSearchItem(String query, Integer from, Integer size, LocalDateTime start,
+                                                LocalDateTime end) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "query", query,
                 "from", from,
                 "size", size
+        ));
+        /* необязательный период: сервер вернет только вещи, свободные весь этот период */
+        String window = "";
+        if (start != null) {
+            parameters.put("start", start);
+            window += "&start={start}";
+        }
+        if (end != null) {
+            parameters.put("end", end);
+            window += "&end={end}";
+        }
+        return get("/search?text={query}&from={from}&size={size}" + window, null, parameters);
+    }
+
+    /* GetMapping("/suggest") */
+    public ResponseEntity<Object> getSuggestions(String prefix, Integer size) {
+        Map<String, Object> parameters = Map.of(
+                "prefix", prefix,
+                "size", size
         );
-        return get("/search?text={query}&from={from}&size={size}", null, parameters);
+        return get("/suggest?prefix={prefix}&size={size}", null, parameters);
     }
 }
@@ -2,6 +2,7 @@ package ru.practicum.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
@@ -11,6 +12,7 @@ import ru.practicum.item.dto.ItemGatewayDto;
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.time.LocalDateTime;
 
 @Controller
 @RequestMapping(path = "/items")
@@ -42,9 +44,10 @@ public class ItemController {
     @GetMapping
     public ResponseEntity<Object> getItems(@RequestHeader("X-Sharer-User-Id") long userId,
                                            @PositiveOrZero @RequestParam(value = "from", defaultValue = "0") int from,
-                                           @Positive @RequestParam(value = "size", defaultValue = "10") int size) {
-        log.info("Get booking userId={}, from={}, size={}", userId, from, size);
-        return itemClient.getItems(userId, from, size);
+                                           @Positive @RequestParam(value = "size", defaultValue = "10") int size,
+                                           @RequestParam(value = "cursor", required = false) String cursor) {
+        log.info("Get booking userId={}, from={}, size={}, cursor={}", userId, from, size, cursor);
+        return itemClient.getItems(userId, from, size, cursor);
     }
 
     @GetMapping("/{id}")
@@ -54,11 +57,31 @@ public class ItemController {
         return itemClient.getItemById(userId, id);
     }
 
+    @GetMapping("/{id}/availability")
+    public ResponseEntity<Object> getAvailability(@PathVariable long id,
+                                                  @RequestParam("from")
+                                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                  @RequestParam("to")
+                                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        log.info("Get availability of item {}, from={}, to={}", id, from, to);
+        return itemClient.getAvailability(id, from, to);
+    }
+
     @GetMapping("/search")
     public ResponseEntity<Object> getSearchItem(@RequestParam("text") String query,
                                                 @PositiveOrZero @RequestParam(value = "from",
                                                         defaultValue = "0") int from,
-                                                @Positive @RequestParam(value = "size", defaultValue = "10") int size) {
-        return itemClient.getSearchItem(query, from, size);
+                                                @Positive @RequestParam(value = "size", defaultValue = "10") int size,
+                                                @RequestParam(value = "start", required = false)
+                                                @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+                                                @RequestParam(value = "end", required = false)
+                                                @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        return itemClient.getSearchItem(query, from, size, start, end);
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<Object> getSuggestions(@RequestParam("prefix") String prefix,
+                                                 @Positive @RequestParam(value = "size", defaultValue = "10") int size) {
+        return itemClient.getSuggestions(prefix, size);
     }
 }
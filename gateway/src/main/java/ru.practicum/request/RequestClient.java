@@ -37,12 +37,12 @@ public class RequestClient extends BaseClient {
     }
 
     /* GetMapping("/all") */
-    public ResponseEntity<Object> getAll(long userId, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
+    public ResponseEntity<Object> getAll(long userId, Integer from, Integer size, String cursor) {
+        Map<String, Object> parameters = withCursor(Map.of(
                 "from", from,
                 "size", size
-        );
-        return get("/all?from={from}&size={size}", userId, parameters);
+        ), cursor);
+        return get("/all?from={from}&size={size}" + cursorQuery(cursor), userId, parameters);
     }
 
     /* GetMapping("/{requestId}") */
@@ -36,9 +36,10 @@ public class RequestController {
     @GetMapping("/all")
     public ResponseEntity<Object> getAll(@RequestHeader("X-Sharer-User-Id") long userId,
                                          @PositiveOrZero @RequestParam(value = "from", defaultValue = "0") int from,
-                                         @Positive @RequestParam(value = "size", defaultValue = "10") int size) {
-        log.info("Get allRequest userId={}, from={}, size={}", userId, from, size);
-        return requestClient.getAll(userId, from, size);
+                                         @Positive @RequestParam(value = "size", defaultValue = "10") int size,
+                                         @RequestParam(value = "cursor", required = false) String cursor) {
+        log.info("Get allRequest userId={}, from={}, size={}, cursor={}", userId, from, size, cursor);
+        return requestClient.getAll(userId, from, size, cursor);
     }
 
     @GetMapping("/{requestId}")
@@ -2,14 +2,19 @@ package ru.practicum.booking;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.booking.dto.BookingBulkCreateDto;
 import ru.practicum.booking.dto.BookingCreateDto;
+import ru.practicum.booking.dto.BookingDecisionDto;
+import ru.practicum.booking.dto.BookingDecisionResultDto;
 import ru.practicum.booking.dto.BookingDto;
 import ru.practicum.booking.dto.BookingMapper;
 
 import javax.validation.Valid;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Component
 @Slf4j
@@ -27,6 +32,15 @@ public class BookingController {
                 userId, bookingCreateDto.getItemId()), true);
     }
 
+    @PostMapping("/bulk")
+    public List<BookingDto> createBookings(@RequestHeader("X-Sharer-User-Id") long userId,
+                                           @RequestBody BookingBulkCreateDto bookingBulkCreateDto) {
+        return bookingService.createAll(bookingBulkCreateDto.getItemIds(), bookingBulkCreateDto.getStart(),
+                        bookingBulkCreateDto.getEnd(), userId).stream()
+                .map(booking -> BookingMapper.toBookingDto(booking, true))
+                .collect(Collectors.toList());
+    }
+
     @PatchMapping("/{id}")
     public BookingDto updateBooking(@RequestHeader("X-Sharer-User-Id") long userId,
                                     @PathVariable("id") long id,
@@ -34,6 +48,12 @@ public class BookingController {
         return BookingMapper.toBookingDto(bookingService.update(id, approved, userId), true);
     }
 
+    @PatchMapping("/batch")
+    public List<BookingDecisionResultDto> updateBookings(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                         @RequestBody List<BookingDecisionDto> decisions) {
+        return bookingService.updateAll(decisions, userId);
+    }
+
     @GetMapping("/{id}")
     public BookingDto getBookingDtoById(@RequestHeader("X-Sharer-User-Id") long userId,
                                         @PathVariable long id) {
@@ -41,21 +61,29 @@ public class BookingController {
     }
 
     @GetMapping
-    public List<BookingDto> getAllBookingsForUser(@RequestHeader("X-Sharer-User-Id") long userId,
-                                                  @RequestParam(value = "state", defaultValue = "ALL") String state,
-                                                  @RequestParam(value = "from", defaultValue = "0") int from,
-                                                  @RequestParam(value = "size", defaultValue = "10") int size) {
-        return BookingMapper.toBookingDtoList(bookingService.getAllBookings(userId,
-                BookingMapper.toStatus(state), from, size), true);
+    public ResponseEntity<List<BookingDto>> getAllBookingsForUser(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                                  @RequestParam(value = "state", defaultValue = "ALL") String state,
+                                                                  @RequestParam(value = "from", defaultValue = "0") int from,
+                                                                  @RequestParam(value = "size", defaultValue = "10") int size,
+                                                                  @RequestParam(value = "cursor", required = false) String cursor) {
+        //с параметром cursor (в том числе пустым) отдаём keyset-страницу и токен следующей в заголовке
+        if (cursor != null) {
+            return bookingService.getAllBookings(userId, BookingMapper.toStatus(state), cursor, size).toResponse();
+        }
+        return ResponseEntity.ok(bookingService.getAllBookings(userId, BookingMapper.toStatus(state), from, size));
     }
 
     @GetMapping("/owner")
-    public List<BookingDto> getBookingsAllItemsForUser(@RequestHeader("X-Sharer-User-Id") long userId,
-                                                       @RequestParam(value = "state", defaultValue = "ALL") String state,
-                                                       @RequestParam(value = "from", defaultValue = "0") int from,
-                                                       @RequestParam(value = "size", defaultValue = "10") int size) {
-        return BookingMapper.toBookingDtoList(bookingService.getBookingsAllItemsForUser(userId,
-                BookingMapper.toStatus(state), from, size), true);
+    public ResponseEntity<List<BookingDto>> getBookingsAllItemsForUser(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                                       @RequestParam(value = "state", defaultValue = "ALL") String state,
+                                                                       @RequestParam(value = "from", defaultValue = "0") int from,
+                                                                       @RequestParam(value = "size", defaultValue = "10") int size,
+                                                                       @RequestParam(value = "cursor", required = false) String cursor) {
+        if (cursor != null) {
+            return bookingService.getBookingsAllItemsForUser(userId, BookingMapper.toStatus(state), cursor, size)
+                    .toResponse();
+        }
+        return ResponseEntity.ok(bookingService.getBookingsAllItemsForUser(userId, BookingMapper.toStatus(state), from, size));
     }
 
     @DeleteMapping("/{id}")
@@ -0,0 +1,17 @@
+package ru.practicum.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+//бронирование создано, подтверждено, отклонено или удалено: меняется занятость вещи
+@Data
+@AllArgsConstructor
+public class BookingIntervalEvent {
+    private long itemId;
+    private long bookingId;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private boolean occupying; //WAITING или APPROVED - интервал занимает вещь
+}
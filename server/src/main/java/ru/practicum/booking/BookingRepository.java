@@ -1,20 +1,20 @@
 package ru.practicum.booking;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.practicum.booking.conflict.BookingInterval;
 import ru.practicum.booking.model.Booking;
-import ru.practicum.item.model.Item;
-import ru.practicum.user.model.User;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
+    //бронирования, которые занимают вещь и не дают забронировать ее на те же даты
+    List<BookingStatus> OCCUPYING = List.of(BookingStatus.WAITING, BookingStatus.APPROVED);
 
     Booking save(Booking booking); //создать/обновить
 
@@ -24,40 +24,61 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
 
     Booking getById(long id); //найти бронирование по его id
 
-    Page<Booking> findByBookerAndStatus(User booker, BookingStatus status, Pageable pageable); //бронирования по арендатору и статусу
-
-    Page<Booking> findByBooker(User booker, Pageable pageable); //бронирования по арендатору
-
-    Page<Booking> findByBookerAndEndIsBefore(User booker, LocalDateTime end, Pageable pageable); //завершенные заказы
-
-    List<Booking> findByBookerAndEndIsBeforeAndItem(User booker, LocalDateTime end, Item item); //все завершенные заказы для вещи и заказчика
-
-    Page<Booking> findByBookerAndStartIsAfter(User booker, LocalDateTime start, Pageable pageable); //будущие заказы
-
-    List<Booking> findByItemAndStartIsBeforeAndStatus(Item item, LocalDateTime start, BookingStatus status, Sort sort); //заказы по времени окончания
-
-    List<Booking> findByItemAndStartIsAfterAndStatus(Item item, LocalDateTime end, BookingStatus status, Sort sort); //заказы по времени окончания
-
-    Page<Booking> findByBookerAndStartIsBeforeAndEndIsAfter(User booker, LocalDateTime start,
-                                                            LocalDateTime end, Pageable pageable); //текущие заказы
-
-    @Query("select b from Booking b join b.item as i " +
-            "where i.owner = ?1 and b.status = ?2")
-    Page<Booking> getBookingsAllItemsForUserWithStatus(User owner, BookingStatus status, Pageable pageable); //все заказы со стасутом
-
-    @Query("select b from Booking b join b.item as i " +
-            "where i.owner = ?1")
-    Page<Booking> getBookingsAllItemsForUser(User owner, Pageable pageable); //вообще все заказы
-
-    @Query("select b from Booking b join b.item as i " +
-            "where i.owner = ?1 and b.end < ?2")
-    Page<Booking> findCompletedBookings(User booker, LocalDateTime end, Pageable pageable); //завершенные заказы
-
-    @Query("select b from Booking b join b.item as i " +
-            "where i.owner = ?1 and b.start > ?2")
-    Page<Booking> findFutureBookings(User booker, LocalDateTime start, Pageable pageable); //будущие заказы
-
-    @Query("select b from Booking b join b.item as i " +
-            "where i.owner = ?1 and b.start < ?2 and b.end > ?3")
-    Page<Booking> findCurrentBookings(User booker, LocalDateTime start, LocalDateTime end, Pageable pageable); //текущие заказы
+    @Query("select case when count(b) > 0 then true else false end from Booking b " +
+            "where b.item.id = :itemId and b.status in :statuses and b.start < :end and b.end > :start")
+    boolean existsOverlapping(@Param("itemId") long itemId, @Param("statuses") Collection<BookingStatus> statuses,
+                              @Param("start") LocalDateTime start, @Param("end") LocalDateTime end); //есть ли пересечение с [start, end)
+
+    @Query("select new ru.practicum.booking.conflict.BookingInterval(b.id, b.start, b.end) from Booking b " +
+            "where b.item.id = :itemId and b.status in :statuses and b.end > :after order by b.start, b.id")
+    List<BookingInterval> findIntervals(@Param("itemId") long itemId,
+                                        @Param("statuses") Collection<BookingStatus> statuses,
+                                        @Param("after") LocalDateTime after); //интервалы, заканчивающиеся после after
+
+    @Query("select distinct b.item.id from Booking b " +
+            "where b.item.id in :itemIds and b.status in :statuses and b.start < :end and b.end > :start")
+    List<Long> findItemIdsOccupiedBetween(@Param("itemIds") Collection<Long> itemIds,
+                                          @Param("statuses") Collection<BookingStatus> statuses,
+                                          @Param("start") LocalDateTime start,
+                                          @Param("end") LocalDateTime end); //какие из вещей заняты в [start, end)
+
+    @Query("select b from Booking b join fetch b.item where b.id in :ids")
+    List<Booking> findAllWithItemById(@Param("ids") Collection<Long> ids); //бронирования вместе с вещами одним запросом
+
+    boolean existsByBookerIdAndItemIdAndEndIsBefore(Long bookerId, Long itemId, LocalDateTime end); //есть ли завершенный заказ вещи у заказчика
+
+    //оконная функция проходит по индексу (item_id, status, start) один раз и оставляет по одной строке на вещь
+    String LAST_IDS_BY_ITEM_IDS = "select t.id from (" +
+            "select b.id, row_number() over (partition by b.item_id order by b.end_date desc, b.id) as rn " +
+            "from bookings b where b.item_id in (:itemIds) and b.status = :status and b.start < :now) as t " +
+            "where t.rn = 1";
+    String NEXT_IDS_BY_ITEM_IDS = "select t.id from (" +
+            "select b.id, row_number() over (partition by b.item_id order by b.start, b.id) as rn " +
+            "from bookings b where b.item_id in (:itemIds) and b.status = :status and b.start > :now) as t " +
+            "where t.rn = 1";
+
+    @Query(value = LAST_IDS_BY_ITEM_IDS, nativeQuery = true)
+    List<Long> findLastIdsByItemIds(@Param("itemIds") Collection<Long> itemIds,
+                                    @Param("now") LocalDateTime now,
+                                    @Param("status") int status); //id последнего заказа каждой вещи
+
+    @Query(value = NEXT_IDS_BY_ITEM_IDS, nativeQuery = true)
+    List<Long> findNextIdsByItemIds(@Param("itemIds") Collection<Long> itemIds,
+                                    @Param("now") LocalDateTime now,
+                                    @Param("status") int status); //id ближайшего заказа каждой вещи
+
+    @Query("select b from Booking b join fetch b.booker where b.id in :ids")
+    List<Booking> findAllWithBookerById(@Param("ids") Collection<Long> ids); //бронирования вместе с арендаторами
+
+    default List<Booking> findLastByItemIds(Collection<Long> itemIds, LocalDateTime now, BookingStatus status) {
+        return findAllWithBookers(findLastIdsByItemIds(itemIds, now, status.ordinal())); //последний заказ каждой вещи
+    }
+
+    default List<Booking> findNextByItemIds(Collection<Long> itemIds, LocalDateTime now, BookingStatus status) {
+        return findAllWithBookers(findNextIdsByItemIds(itemIds, now, status.ordinal())); //ближайший заказ каждой вещи
+    }
+
+    private List<Booking> findAllWithBookers(List<Long> ids) {
+        return ids.isEmpty() ? List.of() : findAllWithBookerById(ids);
+    }
 }
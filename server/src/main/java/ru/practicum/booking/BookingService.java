@@ -1,8 +1,15 @@
 package ru.practicum.booking;
 
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.booking.conflict.BookingInterval;
+import ru.practicum.booking.dto.BookingDecisionDto;
+import ru.practicum.booking.dto.BookingDecisionResultDto;
+import ru.practicum.booking.dto.BookingDto;
 import ru.practicum.booking.model.Booking;
+import ru.practicum.pagination.CursorPage;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Transactional(readOnly = true)
@@ -12,18 +19,34 @@ public interface BookingService {
     Booking create(Booking booking, Long userId, Long itemId);
 
     @Transactional
+    List<Booking> createAll(List<Long> itemIds, LocalDateTime start, LocalDateTime end, Long userId);
+
+    @Transactional(propagation = Propagation.SUPPORTS)
     Booking update(long id, boolean approved, long userId);
 
+    @Transactional(propagation = Propagation.SUPPORTS)
+    List<BookingDecisionResultDto> updateAll(List<BookingDecisionDto> decisions, long userId);
+
     @Transactional
     void deleteBooking(long id);
 
     Booking getBookingById(long userId, long bookingId);
 
-    List<Booking> getAllBookings(long userId, BookingStatusForFilter state, int from, int size);
+    List<BookingDto> getAllBookings(long userId, BookingStatusForFilter state, int from, int size);
+
+    List<BookingDto> getBookingsAllItemsForUser(long userId, BookingStatusForFilter status, int from, int size);
+
+    CursorPage<BookingDto> getAllBookings(long userId, BookingStatusForFilter state, String cursor, int size);
 
-    List<Booking> getBookingsAllItemsForUser(long userId, BookingStatusForFilter status, int from, int size);
+    CursorPage<BookingDto> getBookingsAllItemsForUser(long userId, BookingStatusForFilter status, String cursor, int size);
 
     Booking getLast(Long itemId);
 
     Booking getNext(Long itemId);
+
+    List<Booking> getLastByItems(List<Long> itemIds);
+
+    List<Booking> getNextByItems(List<Long> itemIds);
+
+    List<BookingInterval> getOccupiedIntervals(long itemId, LocalDateTime after);
 }
@@ -1,31 +1,60 @@
 package ru.practicum.booking;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.booking.conflict.BookingConflictChecker;
+import ru.practicum.booking.conflict.BookingInterval;
+import ru.practicum.booking.dto.BookingDecisionDto;
+import ru.practicum.booking.dto.BookingDecisionResultDto;
+import ru.practicum.booking.dto.BookingDto;
+import ru.practicum.booking.lock.ItemWriteLock;
+import ru.practicum.booking.lock.OptimisticRetry;
 import ru.practicum.booking.model.Booking;
+import ru.practicum.booking.query.BookingQuery;
+import ru.practicum.booking.query.BookingQueryEngine;
+import ru.practicum.booking.query.BookingRole;
+import ru.practicum.exception.BookingConflictException;
 import ru.practicum.exception.BookingNotFoundException;
 import ru.practicum.exception.BookingValidationException;
 import ru.practicum.exception.ItemNotFoundException;
 import ru.practicum.exception.UserNotFoundException;
+import ru.practicum.item.ItemChangedEvent;
 import ru.practicum.item.ItemRepository;
+import ru.practicum.item.ItemViewService;
 import ru.practicum.item.model.Item;
+import ru.practicum.pagination.Cursor;
+import ru.practicum.pagination.CursorPage;
 import ru.practicum.user.UserRepository;
 import ru.practicum.user.model.User;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class BookingServiceImpl implements BookingService {
+    public static final int MAX_DECISIONS = 500; //бронирований в одном пакетном решении
+    public static final int MAX_BULK_ITEMS = 50; //вещей в одном пакетном бронировании
     private final BookingRepository bookingRepository;
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
+    private final ItemViewService itemViewService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BookingConflictChecker bookingConflictChecker;
+    private final ItemWriteLock itemWriteLock;
+    private final OptimisticRetry optimisticRetry;
+    private final BookingQueryEngine bookingQueryEngine;
 
     @Override
     @Transactional
@@ -34,55 +63,105 @@ public class BookingServiceImpl implements BookingService {
                 .orElseThrow(() -> new UserNotFoundException("Пользователь не найден")));
         booking.setItem(itemRepository.findById(itemId)
                 .orElseThrow(() -> new ItemNotFoundException("Item не найден")));
-        if (booking.getStart() == null) {
-            throw new BookingValidationException("Укажите дату начала бронирования");
+        checkDates(booking.getStart(), booking.getEnd());
+        checkBookable(booking.getItem(), booking.getBooker());
+        //проверка пересечения и сохранение идут под блокировкой вещи, иначе два параллельных запроса оба пройдут проверку
+        itemWriteLock.lock(itemId);
+        bookingConflictChecker.check(itemId, booking.getStart(), booking.getEnd());
+        booking.setStatus(BookingStatus.WAITING);
+        Booking saved = bookingRepository.save(booking);
+        eventPublisher.publishEvent(new ItemChangedEvent(itemId));
+        eventPublisher.publishEvent(new BookingIntervalEvent(itemId, saved.getId(), saved.getStart(), saved.getEnd(),
+                true));
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public List<Booking> createAll(List<Long> itemIds, LocalDateTime start, LocalDateTime end, Long userId) {
+        if (itemIds == null || itemIds.isEmpty()) {
+            throw new BookingValidationException("Укажите вещи для бронирования");
         }
-        if (booking.getStart().isBefore(LocalDateTime.now())) {
-            throw new BookingValidationException("Неверная дата начала бронирования");
+        if (itemIds.size() > MAX_BULK_ITEMS) {
+            throw new BookingValidationException("За один запрос можно забронировать не более " + MAX_BULK_ITEMS +
+                    " вещей");
         }
-        if (booking.getEnd() == null) {
-            throw new BookingValidationException("Укажите дату окончания бронирования");
+        //одна вещь дважды на одни и те же даты пересекалась бы сама с собой
+        Set<Long> ids = new TreeSet<>();
+        for (Long itemId : itemIds) {
+            if (itemId == null || !ids.add(itemId)) {
+                throw new BookingValidationException("Каждую вещь можно указать только один раз");
+            }
         }
-        if (!booking.getEnd().isAfter(booking.getStart())) {
-            throw new BookingValidationException("Неверная дата окончания бронирования");
+        User booker = userRepository.findById(userId)
+                .orElseThrow(() -> new UserNotFoundException("Пользователь не найден"));
+        checkDates(start, end);
+        //вещи одним запросом, владельцы сверяются по owner_id без загрузки пользователей
+        Map<Long, Item> items = itemRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Item::getId, item -> item));
+        if (items.size() < ids.size()) {
+            throw new ItemNotFoundException("Item не найден");
         }
-        if (!booking.getItem().getAvailable()) {
-            throw new BookingValidationException("Недоступно для бронирования");
+        items.values().forEach(item -> checkBookable(item, booker));
+        //все вещи корзины блокируются до проверок, в общем для всех транзакций порядке
+        itemWriteLock.lockAll(ids);
+        for (Long itemId : ids) {
+            bookingConflictChecker.check(itemId, start, end);
         }
-        if (booking.getBooker().getId().equals(booking.getItem().getOwner().getId())) {
-            throw new BookingNotFoundException("Данная услуга для вас недоступна");
+        List<Booking> bookings = itemIds.stream()
+                .map(itemId -> new Booking(null, start, end, items.get(itemId), booker, BookingStatus.WAITING))
+                .collect(Collectors.toList());
+        //любая ошибка выше или при вставке откатывает всю корзину целиком
+        List<Booking> saved = bookingRepository.saveAll(bookings);
+        bookingRepository.flush();
+        for (Booking booking : saved) {
+            long itemId = booking.getItem().getId();
+            eventPublisher.publishEvent(new ItemChangedEvent(itemId));
+            eventPublisher.publishEvent(new BookingIntervalEvent(itemId, booking.getId(), start, end, true));
         }
-        booking.setStatus(BookingStatus.WAITING);
-        return bookingRepository.save(booking);
+        return saved;
     }
 
     @Override
-    @Transactional
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Booking update(long id, boolean approved, long userId) {
-        Booking old = bookingRepository.findById(id)
-                .orElseThrow(() -> new UserNotFoundException("Бронирование не найдено"));
-        userRepository.findById(old.getBooker().getId())
-                .orElseThrow(() -> new UserNotFoundException("Пользователь не найден"));
-        itemRepository.findById(old.getItem().getId())
-                .orElseThrow(() -> new ItemNotFoundException("Объект бронирования не найден"));
-        if (old.getItem().getOwner().getId() != userId) {
-            throw new BookingNotFoundException("Данная операция для вас недоступна");
+        return optimisticRetry.run(attempt -> approve(id, approved, userId, attempt > 1));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<BookingDecisionResultDto> updateAll(List<BookingDecisionDto> decisions, long userId) {
+        if (decisions == null || decisions.isEmpty()) {
+            throw new BookingValidationException("Укажите бронирования для рассмотрения");
         }
-        if (old.getStatus() != BookingStatus.WAITING) {
-            throw new BookingValidationException("Данная операция для вас недоступна");
+        if (decisions.size() > MAX_DECISIONS) {
+            throw new BookingValidationException("За один запрос можно рассмотреть не более " + MAX_DECISIONS +
+                    " бронирований");
         }
-        if (approved == true) {
-            old.setStatus(BookingStatus.APPROVED);
-        } else {
-            old.setStatus(BookingStatus.REJECTED);
+        Set<Long> ids = new HashSet<>();
+        for (BookingDecisionDto decision : decisions) {
+            if (decision.getId() == null || decision.getApproved() == null) {
+                throw new BookingValidationException("Укажите бронирование и решение по нему");
+            }
+            if (!ids.add(decision.getId())) {
+                throw new BookingValidationException("Бронирование " + decision.getId() + " указано дважды");
+            }
         }
-        return bookingRepository.save(old);
+        return optimisticRetry.run(attempt -> approveAll(decisions, ids, userId));
     }
 
     @Override
     @Transactional
     public void deleteBooking(long id) {
+        Booking booking = bookingRepository.findById(id).orElse(null);
         bookingRepository.deleteById(id);
+        if (booking != null) {
+            long itemId = booking.getItem().getId();
+            itemViewService.refresh(itemId);
+            eventPublisher.publishEvent(new ItemChangedEvent(itemId));
+            eventPublisher.publishEvent(new BookingIntervalEvent(itemId, id, booking.getStart(), booking.getEnd(),
+                    false));
+        }
     }
 
     @Override
@@ -96,60 +175,29 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
-    public List<Booking> getAllBookings(long userId, BookingStatusForFilter state, int from, int size) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new UserNotFoundException("Пользователь не найден"));
-        LocalDateTime now = LocalDateTime.now();
-        switch (state) {
-            case ALL:
-                return bookingRepository.findByBooker(user, getPageableDesc(from, size)).getContent();
-            case FUTURE:
-                return bookingRepository.findByBookerAndStartIsAfter(user, now, getPageableDesc(from, size)).getContent();
-            case PAST:
-                return bookingRepository.findByBookerAndEndIsBefore(user, now, getPageableDesc(from, size)).getContent();
-            case CURRENT:
-                return bookingRepository.findByBookerAndStartIsBeforeAndEndIsAfter(user, now, now, getPageableDesc(from, size))
-                        .getContent();
-            case WAITING:
-            case REJECTED:
-                return bookingRepository.findByBookerAndStatus(user, BookingStatus.valueOf(state.name()), getPageableDesc(from, size))
-                        .getContent();
-            default:
-        }
-        return bookingRepository.findByBookerAndStatus(user, BookingStatus.valueOf(state.name()), getPageableDesc(from, size))
-                .getContent();
+    public List<BookingDto> getAllBookings(long userId, BookingStatusForFilter state, int from, int size) {
+        return findPage(BookingRole.BOOKER, userId, state, from, size);
     }
 
     @Override
-    public List<Booking> getBookingsAllItemsForUser(long userId, BookingStatusForFilter state, int from, int size) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new UserNotFoundException("Пользователь не найден"));
-        LocalDateTime now = LocalDateTime.now();
-        switch (state) {
-            case ALL:
-                return bookingRepository.getBookingsAllItemsForUser(user, getPageableDesc(from, size)).getContent();
-            case FUTURE:
-                return bookingRepository.findFutureBookings(user, now, getPageableDesc(from, size)).getContent();
-            case PAST:
-                return bookingRepository.findCompletedBookings(user, now, getPageableDesc(from, size)).getContent();
-            case CURRENT:
-                return bookingRepository.findCurrentBookings(user, now, now, getPageableAsc(from, size)).getContent();
-            case WAITING:
-            case REJECTED:
-                return bookingRepository.getBookingsAllItemsForUserWithStatus(user, BookingStatus.valueOf(state.name()),
-                        getPageableDesc(from, size)).getContent();
-            default:
-        }
-        return bookingRepository.getBookingsAllItemsForUserWithStatus(user, BookingStatus.valueOf(state.name()),
-                getPageableDesc(from, size)).getContent();
+    public List<BookingDto> getBookingsAllItemsForUser(long userId, BookingStatusForFilter state, int from, int size) {
+        return findPage(BookingRole.OWNER, userId, state, from, size);
+    }
+
+    @Override
+    public CursorPage<BookingDto> getAllBookings(long userId, BookingStatusForFilter state, String cursor, int size) {
+        return findAfter(BookingRole.BOOKER, userId, state, cursor, size);
+    }
+
+    @Override
+    public CursorPage<BookingDto> getBookingsAllItemsForUser(long userId, BookingStatusForFilter state, String cursor,
+                                                             int size) {
+        return findAfter(BookingRole.OWNER, userId, state, cursor, size);
     }
 
     @Override
     public Booking getLast(Long itemId) {
-        Item item = itemRepository.findById(itemId)
-                .orElseThrow(() -> new ItemNotFoundException("Данный запрос вам недоступен"));
-        Sort sortByEnd = Sort.by(Sort.Direction.DESC, "end").and(Sort.by(Sort.Direction.ASC, "id"));
-        List<Booking> bookings = bookingRepository.findByItemAndStartIsBeforeAndStatus(item, LocalDateTime.now(), BookingStatus.APPROVED, sortByEnd);
+        List<Booking> bookings = getLastByItems(List.of(itemId));
         if (bookings.isEmpty()) {
             return null;
         }
@@ -158,23 +206,143 @@ public class BookingServiceImpl implements BookingService {
 
     @Override
     public Booking getNext(Long itemId) {
-        Item item = itemRepository.findById(itemId)
-                .orElseThrow(() -> new ItemNotFoundException("Данный запрос вам недоступен"));
-        Sort sortByStart = Sort.by(Sort.Direction.ASC, "start").and(Sort.by(Sort.Direction.ASC, "id"));
-        List<Booking> bookings = bookingRepository.findByItemAndStartIsAfterAndStatus(item, LocalDateTime.now(), BookingStatus.APPROVED, sortByStart);
+        List<Booking> bookings = getNextByItems(List.of(itemId));
         if (bookings.isEmpty()) {
             return null;
         }
         return bookings.get(0);
     }
 
-    public static Pageable getPageableDesc(int from, int size) {
-        Sort sort = Sort.by(Sort.Direction.DESC, "start");
-        return PageRequest.of(from > 0 ? from / size : 0, size, sort);
+    @Override
+    public List<Booking> getLastByItems(List<Long> itemIds) {
+        return bookingRepository.findLastByItemIds(itemIds, LocalDateTime.now(), BookingStatus.APPROVED);
+    }
+
+    @Override
+    public List<Booking> getNextByItems(List<Long> itemIds) {
+        return bookingRepository.findNextByItemIds(itemIds, LocalDateTime.now(), BookingStatus.APPROVED);
+    }
+
+    @Override
+    public List<BookingInterval> getOccupiedIntervals(long itemId, LocalDateTime after) {
+        return bookingRepository.findIntervals(itemId, BookingRepository.OCCUPYING, after);
+    }
+
+    //смену статуса защищает версия бронирования: из параллельных подтверждения и отклонения коммитится первое,
+    //второе повторяется и видит уже рассмотренное бронирование
+    private Booking approve(long id, boolean approved, long userId, boolean retried) {
+        Booking old = bookingRepository.findById(id)
+                .orElseThrow(() -> new UserNotFoundException("Бронирование не найдено"));
+        if (old.getItem().getOwner().getId() != userId) {
+            throw new BookingNotFoundException("Данная операция для вас недоступна");
+        }
+        if (old.getStatus() != BookingStatus.WAITING) {
+            if (retried) {
+                throw new BookingConflictException("Бронирование уже рассмотрено параллельным запросом");
+            }
+            throw new BookingValidationException("Данная операция для вас недоступна");
+        }
+        if (approved == true) {
+            old.setStatus(BookingStatus.APPROVED);
+        } else {
+            old.setStatus(BookingStatus.REJECTED);
+        }
+        Booking saved = bookingRepository.save(old);
+        if (old.getStatus() == BookingStatus.APPROVED) {
+            itemViewService.refresh(old.getItem().getId());
+        }
+        eventPublisher.publishEvent(new ItemChangedEvent(old.getItem().getId()));
+        eventPublisher.publishEvent(new BookingIntervalEvent(old.getItem().getId(), old.getId(), old.getStart(),
+                old.getEnd(), approved));
+        return saved;
+    }
+
+    //бронирования и вещи читаются одним запросом, владелец сверяется по owner_id без загрузки пользователя;
+    //измененные статусы уходят в базу пачкой при flush. Недоступные и уже рассмотренные бронирования не мешают
+    //остальным - причина отказа возвращается в результате по каждому
+    private List<BookingDecisionResultDto> approveAll(List<BookingDecisionDto> decisions, Set<Long> ids, long userId) {
+        Map<Long, Booking> bookings = bookingRepository.findAllWithItemById(ids).stream()
+                .collect(Collectors.toMap(Booking::getId, booking -> booking));
+        List<BookingDecisionResultDto> results = new ArrayList<>(decisions.size());
+        List<Booking> changed = new ArrayList<>();
+        Set<Long> changedItems = new LinkedHashSet<>();
+        Set<Long> approvedItems = new LinkedHashSet<>();
+        for (BookingDecisionDto decision : decisions) {
+            Booking booking = bookings.get(decision.getId());
+            if (booking == null) {
+                results.add(new BookingDecisionResultDto(decision.getId(), null, "Бронирование не найдено"));
+                continue;
+            }
+            if (booking.getItem().getOwner().getId() != userId) {
+                results.add(new BookingDecisionResultDto(decision.getId(), null, "Данная операция для вас недоступна"));
+                continue;
+            }
+            if (booking.getStatus() != BookingStatus.WAITING) {
+                results.add(new BookingDecisionResultDto(decision.getId(), booking.getStatus(),
+                        "Бронирование уже рассмотрено"));
+                continue;
+            }
+            long itemId = booking.getItem().getId();
+            booking.setStatus(decision.getApproved() ? BookingStatus.APPROVED : BookingStatus.REJECTED);
+            changed.add(booking);
+            changedItems.add(itemId);
+            if (decision.getApproved()) {
+                approvedItems.add(itemId);
+            }
+            results.add(new BookingDecisionResultDto(decision.getId(), booking.getStatus(), null));
+        }
+        bookingRepository.saveAll(changed);
+        bookingRepository.flush();
+        approvedItems.forEach(itemViewService::refresh);
+        changedItems.forEach(itemId -> eventPublisher.publishEvent(new ItemChangedEvent(itemId)));
+        changed.forEach(booking -> eventPublisher.publishEvent(new BookingIntervalEvent(booking.getItem().getId(),
+                booking.getId(), booking.getStart(), booking.getEnd(), booking.getStatus() == BookingStatus.APPROVED)));
+        return results;
+    }
+
+    private void checkDates(LocalDateTime start, LocalDateTime end) {
+        if (start == null) {
+            throw new BookingValidationException("Укажите дату начала бронирования");
+        }
+        if (start.isBefore(LocalDateTime.now())) {
+            throw new BookingValidationException("Неверная дата начала бронирования");
+        }
+        if (end == null) {
+            throw new BookingValidationException("Укажите дату окончания бронирования");
+        }
+        if (!end.isAfter(start)) {
+            throw new BookingValidationException("Неверная дата окончания бронирования");
+        }
     }
 
-    public static Pageable getPageableAsc(int from, int size) {
-        Sort sort = Sort.by(Sort.Direction.ASC, "start");
-        return PageRequest.of(from > 0 ? from / size : 0, size, sort);
+    private void checkBookable(Item item, User booker) {
+        if (!item.getAvailable()) {
+            throw new BookingValidationException("Недоступно для бронирования");
+        }
+        if (booker.getId().equals(item.getOwner().getId())) {
+            throw new BookingNotFoundException("Данная услуга для вас недоступна");
+        }
+    }
+
+    private List<BookingDto> findPage(BookingRole role, long userId, BookingStatusForFilter state, int from, int size) {
+        checkUserExists(userId);
+        return bookingQueryEngine.find(BookingQuery.page(role, userId, state, LocalDateTime.now(), from, size));
+    }
+
+    private CursorPage<BookingDto> findAfter(BookingRole role, long userId, BookingStatusForFilter state, String cursor,
+                                             int size) {
+        checkUserExists(userId);
+        int limit = CursorPage.limit(size).getPageSize();
+        Cursor after = Cursor.decode(cursor, BookingQuery.isAscending(role, state) ? Cursor.EARLIEST : Cursor.LATEST);
+        after.getPositionOrThrow();
+        List<BookingDto> bookings = bookingQueryEngine.find(BookingQuery.after(role, userId, state, LocalDateTime.now(),
+                after, limit));
+        return CursorPage.of(bookings, size, booking -> Cursor.encode(booking.getStart(), booking.getId()));
+    }
+
+    private void checkUserExists(long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new UserNotFoundException("Пользователь не найден");
+        }
     }
 }
@@ -0,0 +1,8 @@
+package ru.practicum.booking.conflict;
+
+import java.time.LocalDateTime;
+
+//проверка пересечения нового бронирования с WAITING и APPROVED бронированиями той же вещи
+public interface BookingConflictChecker {
+    void check(long itemId, LocalDateTime start, LocalDateTime end);
+}
@@ -0,0 +1,27 @@
+package ru.practicum.booking.conflict;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+//GET /actuator/bookingconflicts - состояние деревьев интервалов, POST /actuator/bookingconflicts - сверка с базой
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.booking.conflict-check", havingValue = "index")
+@Endpoint(id = "bookingconflicts")
+public class BookingConflictIndexEndpoint {
+    private final IndexedBookingConflictChecker conflictChecker;
+
+    @ReadOperation
+    public BookingConflictIndexStats stats() {
+        return conflictChecker.getStats();
+    }
+
+    @WriteOperation
+    public BookingConflictIndexStats verify() {
+        return conflictChecker.verify();
+    }
+}
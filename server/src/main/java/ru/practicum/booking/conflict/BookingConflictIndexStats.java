@@ -0,0 +1,18 @@
+package ru.practicum.booking.conflict;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingConflictIndexStats {
+    private long items; //вещи, интервалы которых загружены в память
+    private long intervals; //загруженные интервалы
+    private long conflicts; //отклоненные пересекающиеся бронирования
+    private long drift; //вещей, расходившихся с базой при последней сверке
+    private LocalDateTime verifiedAt; //время последней сверки
+}
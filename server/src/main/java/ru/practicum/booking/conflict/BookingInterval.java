@@ -0,0 +1,19 @@
+package ru.practicum.booking.conflict;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+//интервал [start, end), на который бронирование занимает вещь
+@Data
+@AllArgsConstructor
+public class BookingInterval {
+    private long id;
+    private LocalDateTime start;
+    private LocalDateTime end;
+
+    public boolean overlaps(LocalDateTime otherStart, LocalDateTime otherEnd) {
+        return start.isBefore(otherEnd) && end.isAfter(otherStart);
+    }
+}
@@ -0,0 +1,160 @@
+package ru.practicum.booking.conflict;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.booking.BookingIntervalEvent;
+import ru.practicum.booking.BookingRepository;
+import ru.practicum.exception.BookingConflictException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+//проверка по дереву интервалов вещи в памяти. Дерево загружается из базы при первом бронировании вещи и дальше
+//поддерживается событиями создания, подтверждения, отклонения и удаления бронирований этого узла
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.booking.conflict-check", havingValue = "index")
+public class IndexedBookingConflictChecker implements BookingConflictChecker {
+    private final BookingRepository bookingRepository;
+    private final Cache<Long, IntervalTree> trees;
+    private final Cache<Long, Long> versions; //счетчик изменений бронирований каждой вещи
+    private final Counter conflicts;
+    private volatile long drift;
+    private volatile LocalDateTime verifiedAt;
+
+    public IndexedBookingConflictChecker(BookingRepository bookingRepository,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${shareit.booking.conflict-index.maximum-items:10000}") long maximumItems,
+                                         @Value("${shareit.booking.conflict-index.expire-after-access:1h}")
+                                         Duration expireAfterAccess) {
+        this.bookingRepository = bookingRepository;
+        this.trees = Caffeine.newBuilder()
+                .maximumSize(maximumItems)
+                .expireAfterAccess(expireAfterAccess)
+                .build();
+        //счетчик нужен только на время загрузки дерева, дольше срока жизни дерева его хранить незачем
+        this.versions = Caffeine.newBuilder()
+                .expireAfterWrite(expireAfterAccess)
+                .build();
+        this.conflicts = meterRegistry.counter("bookings.conflicts");
+    }
+
+    @Override
+    public void check(long itemId, LocalDateTime start, LocalDateTime end) {
+        IntervalTree tree = trees.getIfPresent(itemId);
+        if (tree == null) {
+            tree = loadAndCache(itemId);
+        }
+        BookingInterval overlap;
+        synchronized (tree) {
+            overlap = tree.findOverlap(start, end);
+        }
+        if (overlap != null) {
+            conflicts.increment();
+            throw new BookingConflictException("Вещь уже забронирована на эти даты");
+        }
+    }
+
+    //деревья незагруженных вещей не трогаем - они прочитают актуальное состояние из базы при первой проверке.
+    //Счетчик меняется под той же блокировкой записи дерева, что и кладет загруженное дерево в кэш, поэтому
+    //загрузка, пересекшаяся с событием, это увидит
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingIntervalChanged(BookingIntervalEvent event) {
+        trees.asMap().compute(event.getItemId(), (itemId, tree) -> {
+            versions.asMap().merge(itemId, 1L, Long::sum);
+            if (tree != null) {
+                synchronized (tree) {
+                    if (event.isOccupying()) {
+                        tree.add(new BookingInterval(event.getBookingId(), event.getStart(), event.getEnd()));
+                    } else {
+                        tree.remove(event.getBookingId());
+                    }
+                }
+            }
+            return tree;
+        });
+    }
+
+    //сверка загруженных деревьев с базой: расходящиеся (например, после записей другого узла) загружаются заново.
+    //Если за время загрузки пришло событие по вещи, снимок уже устарел - дерево оставляем, его поправило событие
+    public synchronized BookingConflictIndexStats verify() {
+        LocalDateTime now = LocalDateTime.now();
+        AtomicLong mismatched = new AtomicLong();
+        for (Long itemId : trees.asMap().keySet()) {
+            long version = versionOf(itemId);
+            IntervalTree fresh = load(itemId, now);
+            Set<BookingInterval> loaded = new HashSet<>(fresh.getIntervals());
+            trees.asMap().computeIfPresent(itemId, (id, tree) -> {
+                if (version != versionOf(id)) {
+                    return tree;
+                }
+                Set<BookingInterval> indexed;
+                synchronized (tree) {
+                    indexed = tree.getIntervals().stream()
+                            .filter(interval -> interval.getEnd().isAfter(now))
+                            .collect(Collectors.toSet());
+                }
+                if (indexed.equals(loaded)) {
+                    return tree;
+                }
+                mismatched.incrementAndGet();
+                return fresh;
+            });
+        }
+        drift = mismatched.get();
+        verifiedAt = now;
+        BookingConflictIndexStats stats = getStats();
+        log.info("Интервалы бронирований сверены с базой: {}", stats);
+        return stats;
+    }
+
+    public BookingConflictIndexStats getStats() {
+        long intervals = 0;
+        for (IntervalTree tree : trees.asMap().values()) {
+            synchronized (tree) {
+                intervals += tree.size();
+            }
+        }
+        return new BookingConflictIndexStats(trees.estimatedSize(), intervals, (long) conflicts.count(), drift,
+                verifiedAt);
+    }
+
+    //загруженное дерево кладется в кэш, только если за время загрузки бронирования вещи не менялись: иначе снимок
+    //мог пропустить изменение, событие о котором не нашло дерева. Такой снимок годится только для этой проверки
+    private IntervalTree loadAndCache(long itemId) {
+        long version = versionOf(itemId);
+        IntervalTree fresh = load(itemId, LocalDateTime.now());
+        IntervalTree cached = trees.asMap().compute(itemId, (id, tree) -> {
+            if (tree != null || version != versionOf(id)) {
+                return tree;
+            }
+            return fresh;
+        });
+        return cached == null ? fresh : cached;
+    }
+
+    private long versionOf(long itemId) {
+        Long version = versions.getIfPresent(itemId);
+        return version == null ? 0 : version;
+    }
+
+    //закончившиеся бронирования не мешают новым, которые всегда начинаются в будущем
+    private IntervalTree load(long itemId, LocalDateTime now) {
+        List<BookingInterval> intervals = bookingRepository.findIntervals(itemId, BookingRepository.OCCUPYING, now);
+        IntervalTree tree = new IntervalTree();
+        intervals.forEach(tree::add);
+        return tree;
+    }
+}
@@ -0,0 +1,158 @@
+package ru.practicum.booking.conflict;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+//интервалы бронирований одной вещи: AVL-дерево по (start, id), каждый узел помнит наибольший end своего поддерева,
+//поэтому поиск пересечения проходит один путь от корня - O(log n). Потокобезопасность - на вызывающем
+class IntervalTree {
+    private static final Comparator<BookingInterval> ORDER = Comparator.comparing(BookingInterval::getStart)
+            .thenComparingLong(BookingInterval::getId);
+
+    private final Map<Long, BookingInterval> intervals = new HashMap<>();
+    private Node root;
+
+    void add(BookingInterval interval) {
+        remove(interval.getId());
+        intervals.put(interval.getId(), interval);
+        root = insert(root, interval);
+    }
+
+    void remove(long bookingId) {
+        BookingInterval old = intervals.remove(bookingId);
+        if (old != null) {
+            root = delete(root, old);
+        }
+    }
+
+    //любой интервал, пересекающийся с [start, end), или null
+    BookingInterval findOverlap(LocalDateTime start, LocalDateTime end) {
+        Node node = root;
+        while (node != null) {
+            if (node.interval.overlaps(start, end)) {
+                return node.interval;
+            }
+            //если слева есть интервал, кончающийся после start, но не пересекающийся, то он начинается не раньше end,
+            //а значит и все правее него тоже - искать дальше имеет смысл только слева
+            if (node.left != null && node.left.maxEnd.isAfter(start)) {
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return null;
+    }
+
+    int size() {
+        return intervals.size();
+    }
+
+    Collection<BookingInterval> getIntervals() {
+        return intervals.values();
+    }
+
+    private static Node insert(Node node, BookingInterval interval) {
+        if (node == null) {
+            return new Node(interval);
+        }
+        if (ORDER.compare(interval, node.interval) < 0) {
+            node.left = insert(node.left, interval);
+        } else {
+            node.right = insert(node.right, interval);
+        }
+        return balance(node);
+    }
+
+    private static Node delete(Node node, BookingInterval interval) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = ORDER.compare(interval, node.interval);
+        if (cmp < 0) {
+            node.left = delete(node.left, interval);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, interval);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node min = node.right;
+            while (min.left != null) {
+                min = min.left;
+            }
+            node.interval = min.interval;
+            node.right = delete(node.right, min.interval);
+        }
+        return balance(node);
+    }
+
+    private static Node balance(Node node) {
+        node.update();
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        node.update();
+        left.update();
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        node.update();
+        right.update();
+        return right;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static class Node {
+        private BookingInterval interval;
+        private Node left;
+        private Node right;
+        private int height = 1;
+        private LocalDateTime maxEnd;
+
+        Node(BookingInterval interval) {
+            this.interval = interval;
+            this.maxEnd = interval.getEnd();
+        }
+
+        void update() {
+            height = 1 + Math.max(height(left), height(right));
+            maxEnd = interval.getEnd();
+            if (left != null && left.maxEnd.isAfter(maxEnd)) {
+                maxEnd = left.maxEnd;
+            }
+            if (right != null && right.maxEnd.isAfter(maxEnd)) {
+                maxEnd = right.maxEnd;
+            }
+        }
+    }
+}
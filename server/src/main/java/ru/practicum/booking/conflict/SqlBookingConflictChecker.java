@@ -0,0 +1,25 @@
+package ru.practicum.booking.conflict;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.booking.BookingRepository;
+import ru.practicum.exception.BookingConflictException;
+
+import java.time.LocalDateTime;
+
+//проверка запросом к базе по индексу (item_id, status, start): видит записи всех узлов, но стоит запроса на каждое
+//создание бронирования
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.booking.conflict-check", havingValue = "sql", matchIfMissing = true)
+public class SqlBookingConflictChecker implements BookingConflictChecker {
+    private final BookingRepository bookingRepository;
+
+    @Override
+    public void check(long itemId, LocalDateTime start, LocalDateTime end) {
+        if (bookingRepository.existsOverlapping(itemId, BookingRepository.OCCUPYING, start, end)) {
+            throw new BookingConflictException("Вещь уже забронирована на эти даты");
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package ru.practicum.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingBulkCreateDto implements Serializable {
+    private List<Long> itemIds; //что бронируют
+    private LocalDateTime start; //дата и время начала бронирования, общая для всех вещей
+    private LocalDateTime end; //дата и время окончания бронирования, общая для всех вещей
+}
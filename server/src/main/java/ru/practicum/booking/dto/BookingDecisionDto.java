@@ -0,0 +1,15 @@
+package ru.practicum.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingDecisionDto implements Serializable {
+    private Long id; //какое бронирование рассматривается
+    private Boolean approved; //подтвердить или отклонить
+}
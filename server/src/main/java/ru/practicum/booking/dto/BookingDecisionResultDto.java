@@ -0,0 +1,17 @@
+package ru.practicum.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.practicum.booking.BookingStatus;
+
+import java.io.Serializable;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingDecisionResultDto implements Serializable {
+    private Long id; //бронирование
+    private BookingStatus status; //статус после обработки, null - если бронирование недоступно владельцу
+    private String error; //почему решение не применено, null - если применено
+}
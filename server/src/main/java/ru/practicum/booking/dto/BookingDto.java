@@ -21,4 +21,15 @@ public class BookingDto implements Serializable {
     private UserDto booker; //кто бронирует
     private Long bookerId;
     private BookingStatus status; //статус бронирования
+
+    //для выборки списков сразу в dto: поля вещи и арендатора приходят плоским набором
+    public BookingDto(Long id, LocalDateTime start, LocalDateTime end, BookingStatus status,
+                      Long itemId, String itemName, String itemDescription, Boolean itemAvailable,
+                      Long itemOwner, Long itemRequestId, Long bookerId, String bookerName, String bookerEmail) {
+        this(id, start, end,
+                new ItemDto(itemId, itemName, itemDescription, itemAvailable, itemOwner, itemRequestId),
+                new UserDto(bookerId, bookerName, bookerEmail),
+                bookerId,
+                status);
+    }
 }
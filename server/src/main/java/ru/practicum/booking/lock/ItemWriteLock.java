@@ -0,0 +1,12 @@
+package ru.practicum.booking.lock;
+
+import java.util.Collection;
+
+//сериализует запись бронирований одной вещи: блокировка берется внутри транзакции и держится до ее завершения,
+//реализация выбирается свойством shareit.booking.locking
+public interface ItemWriteLock {
+    void lock(long itemId);
+
+    //блокирует сразу несколько вещей в порядке, общем для всех транзакций, чтобы встречные наборы не ждали друг друга
+    void lockAll(Collection<Long> itemIds);
+}
@@ -0,0 +1,68 @@
+package ru.practicum.booking.lock;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.function.IntFunction;
+
+//повтор записи, проигравшей оптимистичную блокировку: каждая попытка - отдельная транзакция, которая заново читает
+//строки и видит результат победившей записи. Попытке передается ее номер, начиная с 1
+@Slf4j
+@Component
+public class OptimisticRetry {
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final Duration backoff;
+    private final Counter retries;
+
+    public OptimisticRetry(PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${shareit.booking.retry.max-attempts:3}") int maxAttempts,
+                           @Value("${shareit.booking.retry.backoff:20ms}") Duration backoff) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.backoff = backoff;
+        this.retries = meterRegistry.counter("bookings.retries");
+    }
+
+    public <T> T run(IntFunction<T> attempt) {
+        //внутри чужой транзакции повторять бесполезно: после конфликта она уже помечена на откат
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return transactionTemplate.execute(status -> attempt.apply(1));
+        }
+        for (int i = 1; ; i++) {
+            int number = i;
+            try {
+                return transactionTemplate.execute(status -> attempt.apply(number));
+            } catch (OptimisticLockingFailureException e) {
+                if (number >= maxAttempts) {
+                    throw e;
+                }
+                retries.increment();
+                log.debug("Конфликт версий, попытка {} из {}", number + 1, maxAttempts);
+                pause(number);
+            }
+        }
+    }
+
+    private void pause(int attempt) {
+        //линейно растущая пауза, чтобы столкнувшиеся запросы не повторялись одновременно
+        long millis = backoff.toMillis() * attempt;
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package ru.practicum.booking.lock;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.exception.ItemNotFoundException;
+import ru.practicum.item.ItemRepository;
+import ru.practicum.item.model.Item;
+
+import java.util.Collection;
+
+//select ... for update строки вещи: работает между узлами, блокировку держит и снимает сама база
+@Component
+@ConditionalOnProperty(name = "shareit.booking.locking", havingValue = "row")
+public class RowItemWriteLock implements ItemWriteLock {
+    private final ItemRepository itemRepository;
+    private final Timer waitTimer;
+
+    public RowItemWriteLock(ItemRepository itemRepository, MeterRegistry meterRegistry) {
+        this.itemRepository = itemRepository;
+        this.waitTimer = Timer.builder("bookings.lock.wait")
+                .tag("mode", "row")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void lock(long itemId) {
+        Item locked = waitTimer.record(() -> itemRepository.lockById(itemId).orElse(null));
+        if (locked == null) {
+            throw new ItemNotFoundException("Item не найден");
+        }
+    }
+
+    @Override
+    public void lockAll(Collection<Long> itemIds) {
+        //строки блокируются по возрастанию id - в одном порядке для всех транзакций
+        itemIds.stream()
+                .distinct()
+                .sorted()
+                .forEach(this::lock);
+    }
+}
@@ -0,0 +1,93 @@
+package ru.practicum.booking.lock;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.exception.BookingConflictException;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+//таблица блокировок в памяти узла: id вещи -> одна из stripes блокировок. Записи разных вещей почти всегда идут
+//параллельно, одной вещи - по очереди. Блокировка снимается после коммита или отката транзакции
+@Component
+@ConditionalOnProperty(name = "shareit.booking.locking", havingValue = "striped", matchIfMissing = true)
+public class StripedItemWriteLock implements ItemWriteLock {
+    private final ReentrantLock[] stripes;
+    private final Duration timeout;
+    private final Timer waitTimer;
+
+    public StripedItemWriteLock(MeterRegistry meterRegistry,
+                                @Value("${shareit.booking.lock-stripes:256}") int stripes,
+                                @Value("${shareit.booking.lock-timeout:5s}") Duration timeout) {
+        //число полос округляется вверх до степени двойки, полоса выбирается маской
+        this.stripes = new ReentrantLock[Integer.highestOneBit(Math.max(stripes - 1, 1)) << 1];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.timeout = timeout;
+        this.waitTimer = Timer.builder("bookings.lock.wait")
+                .tag("mode", "striped")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void lock(long itemId) {
+        lock(stripeOf(itemId));
+    }
+
+    @Override
+    public void lockAll(Collection<Long> itemIds) {
+        //порядок задают номера полос, а не id: полоса вещи определяется хешем, и порядок id у двух встречных
+        //корзин может дать обратный порядок полос. Полоса, общая для нескольких вещей, берется один раз
+        int[] indexes = itemIds.stream()
+                .mapToInt(this::indexOf)
+                .distinct()
+                .sorted()
+                .toArray();
+        for (int index : indexes) {
+            lock(stripes[index]);
+        }
+    }
+
+    private void lock(ReentrantLock lock) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Блокировка вещи берется только внутри транзакции");
+        }
+        long started = System.nanoTime();
+        boolean locked;
+        try {
+            locked = lock.tryLock(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            locked = false;
+        }
+        waitTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        if (!locked) {
+            throw new BookingConflictException("Вещь сейчас бронируют, повторите попытку");
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+    }
+
+    ReentrantLock stripeOf(long itemId) {
+        return stripes[indexOf(itemId)];
+    }
+
+    int indexOf(long itemId) {
+        //перемешиваем биты, чтобы соседние id не попадали в соседние полосы одной и той же маской
+        long hash = itemId * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & (stripes.length - 1);
+    }
+}
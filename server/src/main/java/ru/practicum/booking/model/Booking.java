@@ -17,7 +17,8 @@ import java.time.LocalDateTime;
 @Table(name = "bookings")
 public class Booking {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_seq")
+    @SequenceGenerator(name = "bookings_seq", sequenceName = "bookings_seq", allocationSize = 50)
     private Long id;
     @Column(nullable = false)
     private LocalDateTime start; //дата и время начала бронирование
@@ -30,4 +31,10 @@ public class Booking {
     private User booker; //кто бронирует
     @Column(nullable = false)
     private BookingStatus status; //статус бронирования
+    @Version
+    private Long version; //версия строки: из двух параллельных смен статуса проходит только первая
+
+    public Booking(Long id, LocalDateTime start, LocalDateTime end, Item item, User booker, BookingStatus status) {
+        this(id, start, end, item, booker, status, null);
+    }
 }
@@ -0,0 +1,43 @@
+package ru.practicum.booking.query;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.booking.BookingStatusForFilter;
+import ru.practicum.pagination.Cursor;
+
+import java.time.LocalDateTime;
+
+//что выбирает BookingQueryEngine: чьи бронирования, в каком состоянии и какая страница - по смещению или после курсора
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class BookingQuery {
+    private final BookingRole role;
+    private final long userId;
+    private final BookingStatusForFilter state;
+    private final LocalDateTime now; //момент, относительно которого считаются прошедшие, текущие и будущие
+    private final Cursor after; //null для страниц по смещению
+    private final int offset;
+    private final int limit;
+
+    public static BookingQuery page(BookingRole role, long userId, BookingStatusForFilter state, LocalDateTime now,
+                                    int from, int size) {
+        //страница, в которую попадает from, как и раньше при PageRequest.of(from / size, size)
+        int offset = from > 0 ? from / size * size : 0;
+        return new BookingQuery(role, userId, state, now, null, offset, size);
+    }
+
+    public static BookingQuery after(BookingRole role, long userId, BookingStatusForFilter state, LocalDateTime now,
+                                     Cursor after, int limit) {
+        return new BookingQuery(role, userId, state, now, after, 0, limit);
+    }
+
+    //текущие бронирования владельца отдаются по возрастанию даты начала, остальные - по убыванию
+    public static boolean isAscending(BookingRole role, BookingStatusForFilter state) {
+        return role == BookingRole.OWNER && state == BookingStatusForFilter.CURRENT;
+    }
+
+    public boolean isAscending() {
+        return isAscending(role, state);
+    }
+}
@@ -0,0 +1,120 @@
+package ru.practicum.booking.query;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.practicum.booking.BookingStatus;
+import ru.practicum.booking.BookingStatusForFilter;
+import ru.practicum.booking.dto.BookingDto;
+import ru.practicum.booking.model.Booking;
+import ru.practicum.item.model.Item;
+import ru.practicum.user.model.User;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.ParameterExpression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+//списки бронирований арендатора и владельца одним построителем запроса: роль, состояние, курсор, сортировка и
+//страница складываются в один select сразу в BookingDto. Условие роли всегда по внешнему ключу (booker_id или
+//items.owner_id), сортировка - (start, id), поэтому каждая комбинация идет по составным индексам
+//idx_bookings_booker_start_id или idx_items_owner_id + idx_bookings_item_status_start и не считает count(*)
+@Component
+@RequiredArgsConstructor
+public class BookingQueryEngine {
+    private final EntityManager entityManager;
+
+    public List<BookingDto> find(BookingQuery query) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookingDto> cq = cb.createQuery(BookingDto.class);
+        Root<Booking> booking = cq.from(Booking.class);
+        Join<Booking, Item> item = booking.join("item");
+        Join<Booking, User> booker = booking.join("booker");
+        Path<LocalDateTime> start = booking.get("start");
+        Path<Long> id = booking.get("id");
+
+        //все значения - параметры, а не литералы: один и тот же sql и план для всех пользователей, моментов и курсоров
+        ParameterExpression<Long> userId = cb.parameter(Long.class, "userId");
+        ParameterExpression<BookingStatus> status = cb.parameter(BookingStatus.class, "status");
+        ParameterExpression<LocalDateTime> now = cb.parameter(LocalDateTime.class, "now");
+        ParameterExpression<LocalDateTime> cursorStart = cb.parameter(LocalDateTime.class, "cursorStart");
+        ParameterExpression<Long> cursorId = cb.parameter(Long.class, "cursorId");
+
+        List<Predicate> where = new ArrayList<>();
+        where.add(role(cb, query, booking, item, userId));
+        where.addAll(state(cb, query, booking, status, now));
+        if (query.getAfter() != null) {
+            where.add(after(cb, query, start, id, cursorStart, cursorId));
+        }
+        cq.select(cb.construct(BookingDto.class, id, start, booking.get("end"), booking.get("status"),
+                        item.get("id"), item.get("name"), item.get("description"), item.get("available"),
+                        item.get("owner").get("id"), item.get("request").get("id"),
+                        booker.get("id"), booker.get("name"), booker.get("email")))
+                .where(where.toArray(new Predicate[0]))
+                .orderBy(query.isAscending()
+                        ? List.of(cb.asc(start), cb.asc(id))
+                        : List.of(cb.desc(start), cb.desc(id)));
+        TypedQuery<BookingDto> typed = entityManager.createQuery(cq)
+                .setParameter(userId, query.getUserId());
+        if (isStatus(query.getState())) {
+            typed.setParameter(status, BookingStatus.valueOf(query.getState().name()));
+        } else if (query.getState() != BookingStatusForFilter.ALL) {
+            typed.setParameter(now, query.getNow());
+        }
+        if (query.getAfter() != null) {
+            typed.setParameter(cursorStart, query.getAfter().getPositionOrThrow())
+                    .setParameter(cursorId, query.getAfter().getId());
+        }
+        return typed.setFirstResult(query.getOffset())
+                .setMaxResults(query.getLimit())
+                .getResultList();
+    }
+
+    private Predicate role(CriteriaBuilder cb, BookingQuery query, Root<Booking> booking, Join<Booking, Item> item,
+                           ParameterExpression<Long> userId) {
+        if (query.getRole() == BookingRole.OWNER) {
+            return cb.equal(item.get("owner").get("id"), userId);
+        }
+        return cb.equal(booking.get("booker").get("id"), userId);
+    }
+
+    private List<Predicate> state(CriteriaBuilder cb, BookingQuery query, Root<Booking> booking,
+                                  ParameterExpression<BookingStatus> status,
+                                  ParameterExpression<LocalDateTime> now) {
+        switch (query.getState()) {
+            case ALL:
+                return List.of();
+            case FUTURE:
+                return List.of(cb.greaterThan(booking.get("start"), now));
+            case PAST:
+                return List.of(cb.lessThan(booking.get("end"), now));
+            case CURRENT:
+                return List.of(cb.lessThan(booking.get("start"), now), cb.greaterThan(booking.get("end"), now));
+            default:
+                return List.of(cb.equal(booking.get("status"), status));
+        }
+    }
+
+    //WAITING и REJECTED фильтруют по статусу бронирования, остальные состояния - по датам
+    private static boolean isStatus(BookingStatusForFilter state) {
+        return state == BookingStatusForFilter.WAITING || state == BookingStatusForFilter.REJECTED;
+    }
+
+    //keyset-страница: продолжаем после записи (start, id), на которой закончилась предыдущая
+    private Predicate after(CriteriaBuilder cb, BookingQuery query, Path<LocalDateTime> start, Path<Long> id,
+                            ParameterExpression<LocalDateTime> cursorStart, ParameterExpression<Long> cursorId) {
+        if (query.isAscending()) {
+            return cb.or(cb.greaterThan(start, cursorStart),
+                    cb.and(cb.equal(start, cursorStart), cb.greaterThan(id, cursorId)));
+        }
+        return cb.or(cb.lessThan(start, cursorStart),
+                cb.and(cb.equal(start, cursorStart), cb.lessThan(id, cursorId)));
+    }
+}
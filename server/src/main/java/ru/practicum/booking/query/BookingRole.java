@@ -0,0 +1,6 @@
+package ru.practicum.booking.query;
+
+public enum BookingRole {
+    BOOKER, //бронирования, сделанные пользователем
+    OWNER //бронирования вещей пользователя
+}
@@ -0,0 +1,44 @@
+package ru.practicum.config;
+
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import java.io.Serializable;
+
+//базовый класс всех репозиториев: existsById сначала ищет сущность среди уже загруженных в текущей транзакции
+//и в кэше второго уровня - запрос наличия не видит ни то, ни другое. Если сущности там нет, выполняется обычный
+//запрос наличия, без загрузки всей строки
+public class CacheAwareJpaRepository<T, K> extends SimpleJpaRepository<T, K> {
+    private final JpaEntityInformation<T, ?> entityInformation;
+    private final EntityManager entityManager;
+
+    public CacheAwareJpaRepository(JpaEntityInformation<T, ?> entityInformation, EntityManager entityManager) {
+        super(entityInformation, entityManager);
+        this.entityInformation = entityInformation;
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public boolean existsById(K id) {
+        if (id != null && (isLoaded(id) || entityManager.getEntityManagerFactory().getCache()
+                .contains(entityInformation.getJavaType(), id))) {
+            return true;
+        }
+        return super.existsById(id);
+    }
+
+    private boolean isLoaded(K id) {
+        //вне транзакции общий EntityManager не привязан к сессии, загруженных сущностей у него нет
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return false;
+        }
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel()
+                .entityPersister(entityInformation.getJavaType());
+        return session.getPersistenceContext().getEntity(session.generateEntityKey((Serializable) id, persister)) != null;
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "shareit.cache.hibernate")
+public class HibernateCacheProperties {
+    private Map<String, Region> regions = new HashMap<>(); //настройки регионов кэша второго уровня по имени региона
+
+    @Data
+    public static class Region {
+        private Duration ttl; //время жизни записи, без ограничения если не задано
+        private long maximumSize = 10_000; //максимальное количество записей в регионе
+    }
+}
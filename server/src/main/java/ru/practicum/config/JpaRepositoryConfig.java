@@ -0,0 +1,9 @@
+package ru.practicum.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+@Configuration
+@EnableJpaRepositories(basePackages = "ru.practicum", repositoryBaseClass = CacheAwareJpaRepository.class)
+public class JpaRepositoryConfig {
+}
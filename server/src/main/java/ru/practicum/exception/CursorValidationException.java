@@ -0,0 +1,7 @@
+package ru.practicum.exception;
+
+public class CursorValidationException extends RuntimeException {
+    public CursorValidationException(final String message) {
+        super(message);
+    }
+}
@@ -3,6 +3,7 @@ package ru.practicum.exception;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.BindException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -49,6 +50,12 @@ public class HandlerException {
         return new ErrorResponse(e.getMessage());
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.BAD_REQUEST) //ошибка 400
+    public ErrorResponse handleCursorValidationException(final CursorValidationException e) {
+        return new ErrorResponse(e.getMessage());
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.NOT_FOUND) //ошибка 404
     public ErrorResponse handleUserNotFoundException(final UserNotFoundException e) {
@@ -92,6 +99,19 @@ public class HandlerException {
         return new ErrorResponse(e.getMessage());
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.CONFLICT) //ошибка 409
+    public ErrorResponse handleBookingConflictException(final BookingConflictException e) {
+        return new ErrorResponse(e.getMessage());
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.CONFLICT) //ошибка 409
+    public ErrorResponse handleOptimisticLockingFailureException(final OptimisticLockingFailureException e) {
+        log.warn("Конфликт параллельной записи: {}", e.getMessage());
+        return new ErrorResponse("Данные изменены параллельным запросом, повторите попытку");
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.CONFLICT) //ошибка 409
     public ErrorResponse handleDataIntegrityViolationException(final DataIntegrityViolationException e) {
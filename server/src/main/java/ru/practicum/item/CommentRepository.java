@@ -1,15 +1,22 @@
 package ru.practicum.item;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import ru.practicum.item.model.Comment;
-import ru.practicum.item.model.Item;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long> {
     Comment save(Comment comment);
 
-    List<Comment> findAllByItem(Item item);
+    @Query("select c from Comment c join fetch c.author where c.item.id = ?1")
+    List<Comment> findAllByItemId(Long itemId); //комментарии к вещи вместе с авторами
+
+    @Query("select c from Comment c join fetch c.author where c.item.id in ?1")
+    List<Comment> findAllByItemIdIn(Collection<Long> itemIds); //комментарии сразу для нескольких вещей
+
+    long countByItemId(Long itemId);
 }
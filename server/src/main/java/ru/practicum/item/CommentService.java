@@ -11,4 +11,6 @@ public interface CommentService {
     Comment create(Long userId, Long itemId, Comment comment);
 
     List<Comment> getComments(Long itemId);
+
+    List<Comment> getCommentsByItems(List<Long> itemIds);
 }
@@ -1,6 +1,7 @@
 package ru.practicum.item;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.booking.BookingRepository;
@@ -24,6 +25,8 @@ public class CommentServiceImpl implements CommentService {
     private final UserRepository userRepository;
     private final ItemRepository itemRepository;
     private final BookingRepository bookingRepository;
+    private final ItemViewService itemViewService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
@@ -35,19 +38,28 @@ public class CommentServiceImpl implements CommentService {
         LocalDateTime now = LocalDateTime.now();
         comment.setAuthor(user);
         comment.setItem(item);
-        if (bookingRepository.findByBookerAndEndIsBeforeAndItem(comment.getAuthor(), now, comment.getItem()).isEmpty()) {
+        if (!bookingRepository.existsByBookerIdAndItemIdAndEndIsBefore(userId, itemId, now)) {
             throw new BookingValidationException("Нет завершенных заказов");
         }
         if (comment.getText() == null || comment.getText().isEmpty()) {
             throw new CommentValidationException("Комментарий не может быть пустым");
         }
-        return commentRepository.save(comment);
+        Comment saved = commentRepository.save(comment);
+        itemViewService.refresh(itemId);
+        eventPublisher.publishEvent(new ItemChangedEvent(itemId));
+        return saved;
     }
 
     @Override
     public List<Comment> getComments(Long itemId) {
-        Item item = itemRepository.findById(itemId)
-                .orElseThrow(() -> new ItemValidationException("Отзыв на данный item вам недоступен"));
-        return commentRepository.findAllByItem(item);
+        if (!itemRepository.existsById(itemId)) {
+            throw new ItemValidationException("Отзыв на данный item вам недоступен");
+        }
+        return commentRepository.findAllByItemId(itemId);
+    }
+
+    @Override
+    public List<Comment> getCommentsByItems(List<Long> itemIds) {
+        return commentRepository.findAllByItemIdIn(itemIds);
     }
 }
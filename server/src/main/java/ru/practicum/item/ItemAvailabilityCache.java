@@ -0,0 +1,87 @@
+package ru.practicum.item;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.booking.conflict.BookingInterval;
+import ru.practicum.exception.ItemValidationException;
+import ru.practicum.item.dto.TimeSlotDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+//календарь свободных дат вещи. В кэше лежат занятые интервалы вещи, загруженные одним запросом, - любое окно
+//считается по ним в памяти, а запись сбрасывается при следующем изменении бронирований этой вещи
+@Component
+public class ItemAvailabilityCache {
+    private final ItemService itemService;
+    private final Cache<Long, List<BookingInterval>> intervals;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public ItemAvailabilityCache(ItemService itemService,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${shareit.cache.item-availability.maximum-size:10000}") long maximumSize,
+                                 @Value("${shareit.cache.item-availability.expire-after-write:10m}")
+                                 Duration expireAfterWrite) {
+        this.itemService = itemService;
+        this.intervals = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, intervals, "itemAvailability");
+    }
+
+    //свободные промежутки вещи в окне [from, to); прошедшее время забронировать нельзя, поэтому окно начинается не
+    //раньше текущего момента
+    public List<TimeSlotDto> getAvailability(long itemId, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new ItemValidationException("Начало периода должно быть раньше его окончания");
+        }
+        List<BookingInterval> occupied = intervals.getIfPresent(itemId);
+        if (occupied == null) {
+            //если за время загрузки бронирования вещи изменились, результат в кэш не кладем
+            long version = invalidations.get();
+            occupied = itemService.getOccupiedIntervals(itemId);
+            if (version == invalidations.get()) {
+                intervals.put(itemId, occupied);
+            }
+        }
+        LocalDateTime now = LocalDateTime.now();
+        return freeSlots(occupied, from.isBefore(now) ? now : from, to);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(ItemChangedEvent event) {
+        invalidations.incrementAndGet();
+        intervals.invalidate(event.getItemId());
+    }
+
+    //интервалы отсортированы по началу и могут пересекаться: идем по ним, сдвигая границу занятого времени
+    static List<TimeSlotDto> freeSlots(List<BookingInterval> occupied, LocalDateTime from, LocalDateTime to) {
+        List<TimeSlotDto> slots = new ArrayList<>();
+        LocalDateTime free = from;
+        for (BookingInterval interval : occupied) {
+            if (!free.isBefore(to) || !interval.getStart().isBefore(to)) {
+                break;
+            }
+            if (interval.getStart().isAfter(free)) {
+                slots.add(new TimeSlotDto(free, interval.getStart()));
+            }
+            if (interval.getEnd().isAfter(free)) {
+                free = interval.getEnd();
+            }
+        }
+        if (free.isBefore(to)) {
+            slots.add(new TimeSlotDto(free, to));
+        }
+        return slots;
+    }
+}
@@ -0,0 +1,10 @@
+package ru.practicum.item;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ItemChangedEvent {
+    private long itemId; //вещь, данные которой изменились
+}
@@ -1,12 +1,18 @@
 package ru.practicum.item;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.item.dto.ItemDto;
 import ru.practicum.item.dto.ItemMapper;
+import ru.practicum.item.dto.TimeSlotDto;
+import ru.practicum.item.search.ItemNameSuggester;
+import ru.practicum.item.search.ItemSearchCache;
 
 import javax.validation.Valid;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Component
@@ -15,25 +21,56 @@ import java.util.List;
 @RequestMapping("/items")
 public class ItemController {
     private final ItemService itemService;
+    private final ItemDetailCache itemDetailCache;
+    private final ItemSearchCache itemSearchCache;
+    private final ItemNameSuggester itemNameSuggester;
+    private final ItemAvailabilityCache itemAvailabilityCache;
 
     @GetMapping
-    public List<ItemDto> getItems(@RequestHeader("X-Sharer-User-Id") long userId,
-                                  @RequestParam(value = "from", defaultValue = "0") int from,
-                                  @RequestParam(value = "size", defaultValue = "10") int size) {
-        return ItemMapper.toItemDtoList(itemService.getItems(userId, from, size));
+    public ResponseEntity<List<ItemDto>> getItems(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                  @RequestParam(value = "from", defaultValue = "0") int from,
+                                                  @RequestParam(value = "size", defaultValue = "10") int size,
+                                                  @RequestParam(value = "cursor", required = false) String cursor) {
+        if (cursor != null) {
+            return itemService.getItems(userId, cursor, size).toResponse();
+        }
+        return ResponseEntity.ok(itemService.getItems(userId, from, size));
     }
 
     @GetMapping("/{id}")
     public ItemDto getItemDtoById(@RequestHeader("X-Sharer-User-Id") long userId,
                                   @PathVariable long id) {
-        return ItemMapper.toItemDto(itemService.getItemById(userId, id));
+        return itemDetailCache.getItemById(userId, id);
+    }
+
+    @GetMapping("/{id}/availability")
+    public List<TimeSlotDto> getAvailability(@PathVariable long id,
+                                             @RequestParam("from")
+                                             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                             @RequestParam("to")
+                                             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return itemAvailabilityCache.getAvailability(id, from, to);
     }
 
     @GetMapping("/search")
     public List<ItemDto> getSearchItem(@RequestParam("text") String query,
                                        @RequestParam(value = "from", defaultValue = "0") int from,
+                                       @RequestParam(value = "size", defaultValue = "10") int size,
+                                       @RequestParam(value = "start", required = false)
+                                       @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+                                       @RequestParam(value = "end", required = false)
+                                       @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        //свободные вещи зависят от бронирований, их кэш поиска не хранит
+        if (start != null || end != null) {
+            return itemService.getItemsBySearch(query, start, end, from, size);
+        }
+        return itemSearchCache.search(query, from, size);
+    }
+
+    @GetMapping("/suggest")
+    public List<String> getSuggestions(@RequestParam("prefix") String prefix,
                                        @RequestParam(value = "size", defaultValue = "10") int size) {
-        return ItemMapper.toItemDtoList(itemService.getItemsBySearch(query, from, size));
+        return itemNameSuggester.suggest(prefix, size);
     }
 
     @PostMapping
@@ -0,0 +1,79 @@
+package ru.practicum.item;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.item.dto.ItemDto;
+import ru.practicum.item.dto.ItemMapper;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@Component
+public class ItemDetailCache {
+    private final ItemService itemService;
+    private final Cache<ItemDetailKey, ItemDto> items; //готовые ответы, без сущностей и ленивых прокси
+    private final Cache<Long, Long> owners; //владелец вещи не меняется, по нему определяем роль смотрящего
+    private final Cache<Long, Long> versions; //счетчик изменений каждой вещи
+
+    public ItemDetailCache(ItemService itemService,
+                           MeterRegistry meterRegistry,
+                           @Value("${shareit.cache.item-details.maximum-size:10000}") long maximumSize,
+                           @Value("${shareit.cache.item-details.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.itemService = itemService;
+        this.items = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.owners = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .build();
+        //счетчик нужен только на время загрузки, дольше срока жизни карточки его хранить незачем
+        this.versions = Caffeine.newBuilder()
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, items, "itemDetails");
+    }
+
+    public ItemDto getItemById(long userId, long id) {
+        Long ownerId = owners.getIfPresent(id);
+        if (ownerId != null) {
+            ItemDetailKey key = new ItemDetailKey(id, ownerId == userId);
+            ItemDto cached = items.getIfPresent(key);
+            if (cached != null && !isStale(cached)) {
+                return cached;
+            }
+        }
+        //если за время загрузки эту вещь успели изменить, результат в кэш не кладем
+        long version = versionOf(id);
+        ItemDto item = ItemMapper.toItemDto(itemService.getItemById(userId, id));
+        if (version == versionOf(id)) {
+            owners.put(id, item.getOwner());
+            items.put(new ItemDetailKey(id, item.getOwner() == userId), item);
+        }
+        return item;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(ItemChangedEvent event) {
+        versions.asMap().merge(event.getItemId(), 1L, Long::sum);
+        items.invalidate(new ItemDetailKey(event.getItemId(), true));
+        items.invalidate(new ItemDetailKey(event.getItemId(), false));
+        owners.invalidate(event.getItemId());
+    }
+
+    private long versionOf(long itemId) {
+        Long version = versions.getIfPresent(itemId);
+        return version == null ? 0 : version;
+    }
+
+    private boolean isStale(ItemDto item) {
+        //после начала ближайшего бронирования оно становится последним, карточку владельца нужно пересобрать
+        return item.getNextBooking() != null && !LocalDateTime.now().isBefore(item.getNextBooking().getStart());
+    }
+}
@@ -0,0 +1,11 @@
+package ru.practicum.item;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ItemDetailKey {
+    private long itemId;
+    private boolean owner; //владелец видит бронирования, остальные - нет
+}
@@ -4,32 +4,87 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.practicum.booking.BookingStatus;
+import ru.practicum.item.dto.ItemDto;
 import ru.practicum.item.model.Item;
-import ru.practicum.request.model.ItemRequest;
-import ru.practicum.user.model.User;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface ItemRepository extends JpaRepository<Item, Long> {
+    //списки вещей читаем сразу в ItemDto, без загрузки сущностей в контекст
+    String ITEM_DTO = "select new ru.practicum.item.dto.ItemDto(i.id, i.name, i.description, i.available, " +
+            "i.owner.id, i.request.id) from Item i ";
+    String SEARCH_CONDITION = "where (upper(i.name) like upper(concat('%', ?1, '%')) " +
+            " or upper(i.description) like upper(concat('%', ?1, '%'))) " +
+            "and i.available = true";
+    //у вещи нет бронирований из ?2, пересекающих [?3, ?4)
+    String FREE_CONDITION = " and not exists (select b.id from Booking b where b.item = i " +
+            "and b.status in ?2 and b.start < ?4 and b.end > ?3)";
 
     Item save(Item item); //создать и обновить
 
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "5000"))
+    @Query("select i from Item i where i.id = ?1")
+    Optional<Item> lockById(long id); //select ... for update, блокировка до конца транзакции
+
     void deleteById(long itemId); //удалить
 
-    Page<Item> findByOwner(User userOwner, Pageable pageable); //все вещи владельца по владельцу
+    @Query(value = ITEM_DTO + "where i.owner.id = ?1",
+            countQuery = "select count(i) from Item i where i.owner.id = ?1")
+    Page<ItemDto> findByOwnerId(Long ownerId, Pageable pageable); //все вещи владельца по id владельца
 
-    List<Item> findByRequest(ItemRequest request, Sort sort); //все вещи по запросу
+    @Query(ITEM_DTO + "where i.owner.id = :ownerId and i.id > :cursorId order by i.id")
+    List<ItemDto> findByOwnerIdAfter(@Param("ownerId") Long ownerId, @Param("cursorId") Long cursorId,
+                                     Pageable pageable); //keyset-страница вещей владельца после вещи cursorId
+
+    List<Item> findByRequestId(Long requestId, Sort sort); //все вещи по id запроса
+
+    @Query(ITEM_DTO + "where i.request.id in ?1 order by i.id desc")
+    List<ItemDto> findByRequestIdIn(Collection<Long> requestIds); //ответы сразу на несколько запросов
 
     Item getItemById(long id); //вещь по её id
 
+    @Query(ITEM_DTO + "where i.id = ?1")
+    Optional<ItemDto> findDtoById(Long id); //вещь по её id сразу в dto
+
+    @Query(ITEM_DTO + "where i.id in ?1")
+    List<ItemDto> findDtosByIdIn(Collection<Long> ids); //вещи по списку id сразу в dto
+
+    @Query(ITEM_DTO + "where i.available = true order by i.id")
+    List<ItemDto> findAllAvailable(); //все доступные вещи для индекса поиска
+
     List<Item> findAll(); // вообще все вещи
 
-    @Query(" select i from Item i join i.owner as u " +
-            "where (upper(i.name) like upper(concat('%', ?1, '%')) " +
-            " or upper(i.description) like upper(concat('%', ?1, '%'))) " +
-            "and available = true")
-    Page<Item> findAllBySearch(String query, Pageable pageable); //для поиска по запросу
+    @Query(value = ITEM_DTO + SEARCH_CONDITION,
+            countQuery = "select count(i) from Item i " + SEARCH_CONDITION)
+    Page<ItemDto> findAllBySearch(String query, Pageable pageable); //для поиска по запросу
+
+    @Query(ITEM_DTO + SEARCH_CONDITION)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<ItemDto> streamAllBySearch(String query); //все найденные вещи потоком, без загрузки списка целиком
+
+    @Query(value = ITEM_DTO + SEARCH_CONDITION + FREE_CONDITION,
+            countQuery = "select count(i) from Item i " + SEARCH_CONDITION + FREE_CONDITION)
+    Page<ItemDto> findAllFreeBySearch(String query, Collection<BookingStatus> occupying, LocalDateTime start,
+                                      LocalDateTime end, Pageable pageable); //найденные вещи, свободные в период
+
+    @Query(ITEM_DTO + SEARCH_CONDITION + FREE_CONDITION)
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<ItemDto> streamAllFreeBySearch(String query, Collection<BookingStatus> occupying, LocalDateTime start,
+                                          LocalDateTime end); //то же потоком
 }
@@ -1,14 +1,20 @@
 package ru.practicum.item;
 
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.booking.conflict.BookingInterval;
+import ru.practicum.item.dto.ItemDto;
 import ru.practicum.item.model.Item;
+import ru.practicum.pagination.CursorPage;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Transactional(readOnly = true)
 public interface ItemService {
 
-    List<Item> getItems(long userId, int from, int size);
+    List<ItemDto> getItems(long userId, int from, int size);
+
+    CursorPage<ItemDto> getItems(long userId, String cursor, int size);
 
     @Transactional
     Item create(Long userId, Long requestId, Item item);
@@ -23,7 +29,13 @@ public interface ItemService {
 
     Item getItemById(long userId, long id);
 
-    List<Item> getItemsBySearch(String query, int from, int size);
+    List<ItemDto> getItemsBySearch(String query, int from, int size);
+
+    List<ItemDto> getItemsBySearch(String query, LocalDateTime start, LocalDateTime end, int from, int size);
+
+    List<ItemDto> getItemsByIds(List<Long> ids);
 
     List<Item> getByRequest(long requestId);
+
+    List<BookingInterval> getOccupiedIntervals(long itemId);
 }
@@ -1,23 +1,34 @@
 package ru.practicum.item;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.booking.BookingService;
-import ru.practicum.booking.model.Booking;
+import ru.practicum.booking.conflict.BookingInterval;
+import ru.practicum.booking.dto.BookingDto;
+import ru.practicum.booking.dto.BookingMapper;
 import ru.practicum.exception.*;
-import ru.practicum.item.model.Comment;
+import ru.practicum.item.dto.CommentDto;
+import ru.practicum.item.dto.CommentMapper;
+import ru.practicum.item.dto.ItemDto;
 import ru.practicum.item.model.Item;
+import ru.practicum.item.model.ItemView;
+import ru.practicum.item.search.ItemSearchEngine;
+import ru.practicum.pagination.Cursor;
+import ru.practicum.pagination.CursorPage;
 import ru.practicum.request.ItemRequestRepository;
-import ru.practicum.request.model.ItemRequest;
 import ru.practicum.user.UserRepository;
-import ru.practicum.user.model.User;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
@@ -28,6 +39,9 @@ public class ItemServiceImpl implements ItemService {
     private final BookingService bookingService;
     private final UserRepository userRepository;
     private final ItemRequestRepository itemRequestRepository;
+    private final ItemViewService itemViewService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ItemSearchEngine itemSearchEngine;
 
     @Override
     public List<Item> findAllItems() {
@@ -46,23 +60,28 @@ public class ItemServiceImpl implements ItemService {
         if (item.getAvailable() == null) {
             throw new ItemValidationException("Укажите статус для брoнирования");
         }
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new UserNotFoundException("user не найден"));
+        if (!userRepository.existsById(userId)) {
+            throw new UserNotFoundException("user не найден");
+        }
         if (requestId != null) {
-            ItemRequest itemRequest = itemRequestRepository.findById(requestId)
-                    .orElseThrow(() -> new ItemRequestNotFoundException("Запрос не найден"));
-            item.setRequest(itemRequest);
+            if (!itemRequestRepository.existsById(requestId)) {
+                throw new ItemRequestNotFoundException("Запрос не найден");
+            }
+            item.setRequest(itemRequestRepository.getReferenceById(requestId));
         }
-        item.setOwner(user);
+        item.setOwner(userRepository.getReferenceById(userId));
         item = itemRepository.save(item);
+        itemViewService.create(item);
+        eventPublisher.publishEvent(new ItemWrittenEvent(item.getId()));
         return item;
     }
 
     @Override
     @Transactional
     public Item update(Long userId, Item item) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new UserNotFoundException("user не найден"));
+        if (!userRepository.existsById(userId)) {
+            throw new UserNotFoundException("user не найден");
+        }
         Item old = itemRepository.getItemById(item.getId());
         if (item.getName() == null) {
             item.setName(old.getName());
@@ -73,9 +92,9 @@ public class ItemServiceImpl implements ItemService {
         if (item.getAvailable() == null) {
             item.setAvailable(old.getAvailable());
         }
-        if (item.getOwner() == null) {
-            item.setOwner(old.getOwner());
-        }
+        item.setOwner(old.getOwner());
+        //версия прочитанной строки: если вещь успели изменить параллельно, сохранение завершится конфликтом
+        item.setVersion(old.getVersion());
         if (item.getName().isEmpty()) {
             throw new ItemValidationException("Отсутствует назание для item");
         }
@@ -86,72 +105,130 @@ public class ItemServiceImpl implements ItemService {
             throw new ItemAlreadyExistException("Данная операция для вас недоступна, вы пытаетесь изменить данные " +
                     "не принадлежащей вам вещи");
         }
-        item.setOwner(user);
-        return itemRepository.save(item);
+        Item saved = itemRepository.save(item);
+        eventPublisher.publishEvent(new ItemWrittenEvent(item.getId()));
+        return saved;
     }
 
     @Override
     @Transactional
     public void deleteItem(long itemId) {
         itemRepository.deleteById(itemId);
+        eventPublisher.publishEvent(new ItemWrittenEvent(itemId));
     }
 
     @Override
     public Item getItemById(long userId, long id) {
-        Item item = itemRepository.findById(id)
-                .orElseThrow(() -> new ItemNotFoundException("item не найден"));
-        addComment(item);
-        if (item.getOwner().getId().equals(userId)) {
-            addBookings(item);
-        }
+        //вещь и ее бронирования берем из заранее собранной карточки, отзывы читаем только если они есть
+        ItemView view = itemViewService.getItemView(id);
+        Item item = view.getItem();
+        if (view.getCommentsCount() > 0) {
+            item.setComments(commentService.getCommentsByItems(List.of(id)));
+        } else {
+            item.setComments(new ArrayList<>());
+        }
+        boolean isOwner = item.getOwner().getId().equals(userId);
+        item.setLastBooking(isOwner ? view.getLastBooking() : null);
+        item.setNextBooking(isOwner ? view.getNextBooking() : null);
         return item;
     }
 
     @Override
-    public List<Item> getItems(long id, int from, int size) {
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new UserNotFoundException("user не найден"));
+    public List<ItemDto> getItems(long id, int from, int size) {
+        if (!userRepository.existsById(id)) {
+            throw new UserNotFoundException("user не найден");
+        }
         Sort sortById = Sort.by(Sort.Direction.ASC, "id");
         Pageable pageable = PageRequest.of(from > 0 ? from / size : 0, size, sortById);
 
-        List<Item> items = itemRepository.findByOwner(user, pageable).getContent();
-        for (Item item : items) {
-            addComment(item);
-            if (item.getOwner().getId().equals(id)) {
-                addBookings(item);
-            }
+        return withBookingsAndComments(itemRepository.findByOwnerId(id, pageable).getContent());
+    }
+
+    @Override
+    public CursorPage<ItemDto> getItems(long id, String cursor, int size) {
+        if (!userRepository.existsById(id)) {
+            throw new UserNotFoundException("user не найден");
+        }
+        Cursor after = Cursor.decode(cursor, Cursor.EARLIEST);
+        List<ItemDto> items = itemRepository.findByOwnerIdAfter(id, after.getId(), CursorPage.limit(size));
+        CursorPage<ItemDto> page = CursorPage.of(items, size, item -> Cursor.encode(item.getId()));
+        withBookingsAndComments(page.getContent());
+        return page;
+    }
+
+    private List<ItemDto> withBookingsAndComments(List<ItemDto> items) {
+        if (items.isEmpty()) {
+            return items;
+        }
+        //комментарии и бронирования для всей страницы загружаем пакетно и раскладываем по вещам в памяти
+        List<Long> itemIds = items.stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList());
+        Map<Long, List<CommentDto>> comments = commentService.getCommentsByItems(itemIds).stream()
+                .collect(Collectors.groupingBy(comment -> comment.getItem().getId(),
+                        Collectors.mapping(comment -> CommentMapper.toCommentDto(comment, false), Collectors.toList())));
+        Map<Long, BookingDto> lastBookings = bookingService.getLastByItems(itemIds).stream()
+                .collect(Collectors.toMap(booking -> booking.getItem().getId(),
+                        booking -> BookingMapper.toBookingDto(booking, false)));
+        Map<Long, BookingDto> nextBookings = bookingService.getNextByItems(itemIds).stream()
+                .collect(Collectors.toMap(booking -> booking.getItem().getId(),
+                        booking -> BookingMapper.toBookingDto(booking, false)));
+        for (ItemDto item : items) {
+            item.setComments(comments.getOrDefault(item.getId(), new ArrayList<>()));
+            item.setLastBooking(lastBookings.get(item.getId()));
+            item.setNextBooking(nextBookings.get(item.getId()));
         }
         return items;
     }
 
-    public List<Item> getItemsBySearch(String query, int from, int size) {
-        List<Item> items = new ArrayList<>();
-        Pageable pageable = PageRequest.of(from > 0 ? from / size : 0, size);
+    public List<ItemDto> getItemsBySearch(String query, int from, int size) {
         if (query.isEmpty()) {
-            return items;
+            return new ArrayList<>();
         }
-        return itemRepository.findAllBySearch(query, pageable).getContent();
+        return itemSearchEngine.search(query, from, size);
     }
 
-    public List<Item> getByRequest(long requestId) {
-        ItemRequest itemRequest = itemRequestRepository.getItemRequestById(requestId);
-        Sort sortById = Sort.by(Sort.Direction.DESC, "id");
-        return itemRepository.findByRequest(itemRequest, sortById);
+    @Override
+    public List<ItemDto> getItemsBySearch(String query, LocalDateTime start, LocalDateTime end, int from, int size) {
+        if (start == null && end == null) {
+            return getItemsBySearch(query, from, size);
+        }
+        if (start == null || end == null) {
+            throw new ItemValidationException("Укажите начало и окончание периода");
+        }
+        if (!start.isBefore(end)) {
+            throw new ItemValidationException("Начало периода должно быть раньше его окончания");
+        }
+        if (query.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return itemSearchEngine.searchFree(query, start, end, from, size);
+    }
+
+    @Override
+    public List<BookingInterval> getOccupiedIntervals(long itemId) {
+        if (!itemRepository.existsById(itemId)) {
+            throw new ItemNotFoundException("Item не найден");
+        }
+        return bookingService.getOccupiedIntervals(itemId, LocalDateTime.now());
     }
 
-    private void addComment(Item item) {
-        List<Comment> comments = commentService.getComments(item.getId());
-        item.setComments(comments);
+    @Override
+    public List<ItemDto> getItemsByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        //порядок вещей задает переданный список id
+        Map<Long, ItemDto> items = itemRepository.findDtosByIdIn(ids).stream()
+                .collect(Collectors.toMap(ItemDto::getId, item -> item));
+        return ids.stream()
+                .map(items::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
 
-    private void addBookings(Item item) {
-        Booking last = bookingService.getLast(item.getId());
-        Booking next = bookingService.getNext(item.getId());
-        if (last != null) {
-            item.setLastBooking(last);
-        }
-        if (next != null) {
-            item.setNextBooking(next);
-        }
+    public List<Item> getByRequest(long requestId) {
+        Sort sortById = Sort.by(Sort.Direction.DESC, "id");
+        return itemRepository.findByRequestId(requestId, sortById);
     }
 }
@@ -0,0 +1,38 @@
+package ru.practicum.item;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+//пересчитывает карточки, у которых началось ближайшее бронирование: без этого такая карточка ждала бы следующей
+//записи по вещи, а до тех пор каждое чтение собирало бы ее заново из бронирований и отзывов
+@Slf4j
+@Component
+public class ItemViewRefresher {
+    private final ItemViewService itemViewService;
+    private final int batchSize;
+
+    public ItemViewRefresher(ItemViewService itemViewService,
+                             @Value("${shareit.item-view.refresh.batch-size:500}") int batchSize) {
+        this.itemViewService = itemViewService;
+        this.batchSize = Math.max(batchSize, 1);
+    }
+
+    //каждая пачка - своя транзакция; пересчитанные карточки становятся свежими и в следующую пачку не попадают
+    @Scheduled(fixedDelayString = "${shareit.item-view.refresh.interval:PT1M}")
+    public void refreshStale() {
+        LocalDateTime now = LocalDateTime.now();
+        long total = 0;
+        int refreshed;
+        do {
+            refreshed = itemViewService.refreshStale(now, batchSize);
+            total += refreshed;
+        } while (refreshed == batchSize);
+        if (total > 0) {
+            log.debug("Пересчитано устаревших карточек вещей: {}", total);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package ru.practicum.item;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import ru.practicum.item.model.ItemView;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ItemViewRepository extends JpaRepository<ItemView, Long> {
+
+    @Query("select v from ItemView v join fetch v.item " +
+            "left join fetch v.lastBooking lb left join fetch lb.booker " +
+            "left join fetch v.nextBooking nb left join fetch nb.booker " +
+            "where v.itemId = ?1")
+    Optional<ItemView> findWithBookingsById(Long itemId); //карточка вещи вместе с бронированиями одним запросом
+
+    @Query("select v from ItemView v where v.validUntil <= ?1 order by v.validUntil")
+    List<ItemView> findStale(LocalDateTime now, Pageable pageable); //карточки, у которых уже началось ближайшее бронирование
+}
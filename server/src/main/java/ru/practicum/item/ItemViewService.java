@@ -0,0 +1,22 @@
+package ru.practicum.item;
+
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.item.model.Item;
+import ru.practicum.item.model.ItemView;
+
+import java.time.LocalDateTime;
+
+@Transactional(readOnly = true)
+public interface ItemViewService {
+
+    @Transactional
+    ItemView create(Item item);
+
+    ItemView getItemView(long itemId);
+
+    @Transactional
+    void refresh(long itemId);
+
+    @Transactional
+    int refreshStale(LocalDateTime now, int limit);
+}
@@ -0,0 +1,108 @@
+package ru.practicum.item;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.booking.BookingRepository;
+import ru.practicum.booking.BookingStatus;
+import ru.practicum.booking.model.Booking;
+import ru.practicum.exception.ItemNotFoundException;
+import ru.practicum.item.model.Item;
+import ru.practicum.item.model.ItemView;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class ItemViewServiceImpl implements ItemViewService {
+    private final ItemViewRepository itemViewRepository;
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final CommentRepository commentRepository;
+
+    @Override
+    @Transactional
+    public ItemView create(Item item) {
+        //у новой вещи нет ни бронирований, ни отзывов, пересчитывать нечего
+        return itemViewRepository.save(new ItemView(null, item, null, null, 0, null));
+    }
+
+    @Override
+    public ItemView getItemView(long itemId) {
+        LocalDateTime now = LocalDateTime.now();
+        Optional<ItemView> view = itemViewRepository.findWithBookingsById(itemId);
+        if (view.isPresent() && !isStale(view.get(), now)) {
+            return view.get();
+        }
+        //ближайшее бронирование уже началось или карточки нет - собираем ее в памяти, ничего не записывая:
+        //сохраненную карточку обновит следующая запись по вещи
+        Item item = view.map(ItemView::getItem)
+                .or(() -> itemRepository.findById(itemId))
+                .orElseThrow(() -> new ItemNotFoundException("item не найден"));
+        return build(item, now);
+    }
+
+    @Override
+    @Transactional
+    public void refresh(long itemId) {
+        //карточка появляется вместе с вещью, а для старых вещей - в миграции, поэтому здесь строка только
+        //обновляется: параллельные пересчеты не сталкиваются на вставке, последний просто перезаписывает первый
+        itemViewRepository.findById(itemId).ifPresent(view -> {
+            ItemView fresh = build(view.getItem(), LocalDateTime.now());
+            view.setLastBooking(fresh.getLastBooking());
+            view.setNextBooking(fresh.getNextBooking());
+            view.setCommentsCount(fresh.getCommentsCount());
+            view.setValidUntil(fresh.getValidUntil());
+        });
+    }
+
+    @Override
+    @Transactional
+    public int refreshStale(LocalDateTime now, int limit) {
+        List<ItemView> views = itemViewRepository.findStale(now, PageRequest.of(0, limit));
+        if (views.isEmpty()) {
+            return 0;
+        }
+        List<Long> itemIds = views.stream()
+                .map(ItemView::getItemId)
+                .collect(Collectors.toList());
+        Map<Long, Booking> last = byItem(bookingRepository.findLastByItemIds(itemIds, now, BookingStatus.APPROVED));
+        Map<Long, Booking> next = byItem(bookingRepository.findNextByItemIds(itemIds, now, BookingStatus.APPROVED));
+        //со временем меняются только бронирования, количество отзывов обновляется при записи отзыва
+        for (ItemView view : views) {
+            Booking nextBooking = next.get(view.getItemId());
+            view.setLastBooking(last.get(view.getItemId()));
+            view.setNextBooking(nextBooking);
+            view.setValidUntil(nextBooking == null ? null : nextBooking.getStart());
+        }
+        return views.size();
+    }
+
+    private ItemView build(Item item, LocalDateTime now) {
+        Booking last = first(bookingRepository.findLastByItemIds(List.of(item.getId()), now, BookingStatus.APPROVED));
+        Booking next = first(bookingRepository.findNextByItemIds(List.of(item.getId()), now, BookingStatus.APPROVED));
+        int commentsCount = (int) commentRepository.countByItemId(item.getId());
+        //как только начнется ближайшее бронирование, последнее и следующее сменятся
+        return new ItemView(item.getId(), item, last, next, commentsCount, next == null ? null : next.getStart());
+    }
+
+    private boolean isStale(ItemView view, LocalDateTime now) {
+        return view.getValidUntil() != null && !now.isBefore(view.getValidUntil());
+    }
+
+    private Map<Long, Booking> byItem(List<Booking> bookings) {
+        return bookings.stream()
+                .collect(Collectors.toMap(booking -> booking.getItem().getId(), Function.identity()));
+    }
+
+    private Booking first(List<Booking> bookings) {
+        return bookings.isEmpty() ? null : bookings.get(0);
+    }
+}
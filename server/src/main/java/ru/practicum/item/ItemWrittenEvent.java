@@ -0,0 +1,12 @@
+package ru.practicum.item;
+
+import lombok.ToString;
+
+//вещь создана, изменена или удалена самим владельцем - в отличие от бронирований и отзывов,
+//такие изменения затрагивают результаты поиска
+@ToString(callSuper = true)
+public class ItemWrittenEvent extends ItemChangedEvent {
+    public ItemWrittenEvent(long itemId) {
+        super(itemId);
+    }
+}
@@ -21,4 +21,8 @@ public class ItemDto implements Serializable {
     private BookingDto lastBooking;
     private List<CommentDto> comments;
     private Long requestId;
+
+    public ItemDto(Long id, String name, String description, Boolean available, Long owner, Long requestId) {
+        this(id, name, description, available, owner, null, null, null, requestId);
+    }
 }
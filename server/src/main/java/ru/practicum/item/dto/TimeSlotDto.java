@@ -0,0 +1,15 @@
+package ru.practicum.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TimeSlotDto {
+    private LocalDateTime start; //начало свободного промежутка
+    private LocalDateTime end; //конец свободного промежутка, не включительно
+}
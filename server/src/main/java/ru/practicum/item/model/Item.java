@@ -3,6 +3,8 @@ package ru.practicum.item.model;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import ru.practicum.booking.model.Booking;
 import ru.practicum.request.model.ItemRequest;
 import ru.practicum.user.model.User;
@@ -15,9 +17,12 @@ import java.util.List;
 @NoArgsConstructor
 @Entity
 @Table(name = "items")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "items")
 public class Item {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "items_seq")
+    @SequenceGenerator(name = "items_seq", sequenceName = "items_seq", allocationSize = 50)
     private Long id; //идентификатор вещи
     @Column(nullable = false)
     private String name; //название вещи
@@ -36,4 +41,11 @@ public class Item {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "request_id")
     private ItemRequest request; //ссылка на запрос user'а, для которого была создана вещь == ответ на запрос
+    @Version
+    private Long version; //версия строки, растет с каждым изменением вещи
+
+    public Item(Long id, String name, String description, Boolean available, User owner, Booking nextBooking,
+                Booking lastBooking, List<Comment> comments, ItemRequest request) {
+        this(id, name, description, available, owner, nextBooking, lastBooking, comments, request, null);
+    }
 }
@@ -0,0 +1,34 @@
+package ru.practicum.item.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.practicum.booking.model.Booking;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "item_view")
+public class ItemView {
+    @Id
+    @Column(name = "item_id")
+    private Long itemId; //идентификатор вещи, для которой собрана карточка
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "item_id")
+    private Item item;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "last_booking_id")
+    private Booking lastBooking; //последнее подтвержденное бронирование
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "next_booking_id")
+    private Booking nextBooking; //ближайшее подтвержденное бронирование
+    @Column(name = "comments_count", nullable = false)
+    private Integer commentsCount; //количество отзывов
+    @Column(name = "valid_until")
+    private LocalDateTime validUntil; //начало ближайшего бронирования, после него карточку нужно пересчитать
+}
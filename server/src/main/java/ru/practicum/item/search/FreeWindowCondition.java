@@ -0,0 +1,26 @@
+package ru.practicum.item.search;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import ru.practicum.booking.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.util.stream.Collectors;
+
+//анти-join для SQL-движков: у вещи нет WAITING и APPROVED бронирований, пересекающих [start, end).
+//статусы подставлены литералами, чтобы PostgreSQL мог выбрать частичный индекс из V6
+final class FreeWindowCondition {
+    static final String SQL = "and not exists (select 1 from bookings b where b.item_id = i.id " +
+            "and b.status in (" + BookingRepository.OCCUPYING.stream()
+            .map(status -> String.valueOf(status.ordinal()))
+            .collect(Collectors.joining(", ")) + ") " +
+            "and b.start < :end and b.end_date > :start) ";
+
+    private FreeWindowCondition() {
+    }
+
+    static MapSqlParameterSource addTo(MapSqlParameterSource parameters, LocalDateTime start, LocalDateTime end) {
+        return parameters
+                .addValue("start", start)
+                .addValue("end", end);
+    }
+}
@@ -0,0 +1,64 @@
+package ru.practicum.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.practicum.item.dto.ItemDto;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+//полнотекстовый поиск PostgreSQL по колонке items.search_vector (GIN-индекс, миграция V4) с ранжированием
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "full-text")
+public class FullTextItemSearchEngine implements ItemSearchEngine {
+    private static final String MATCH = "select i.id, i.name, i.description, i.available, i.owner_id, i.request_id " +
+            "from items i, to_tsquery('russian', :query) q " +
+            "where i.search_vector @@ q and i.available = true ";
+    private static final String PAGE = "order by ts_rank(i.search_vector, q) desc, i.id " +
+            "limit :size offset :offset";
+    private static final String SEARCH = MATCH + PAGE;
+    private static final String SEARCH_FREE = MATCH + FreeWindowCondition.SQL + PAGE;
+    private static final ItemDtoRowMapper ITEM_DTO = new ItemDtoRowMapper();
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<ItemDto> search(String text, int from, int size) {
+        String query = toPrefixQuery(text);
+        if (query.isEmpty()) {
+            return List.of();
+        }
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("query", query)
+                .addValue("size", size)
+                .addValue("offset", from > 0 ? from / size * size : 0);
+        return jdbcTemplate.query(SEARCH, parameters, ITEM_DTO);
+    }
+
+    @Override
+    public List<ItemDto> searchFree(String text, LocalDateTime start, LocalDateTime end, int from, int size) {
+        String query = toPrefixQuery(text);
+        if (query.isEmpty()) {
+            return List.of();
+        }
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("query", query)
+                .addValue("size", size)
+                .addValue("offset", from > 0 ? from / size * size : 0);
+        return jdbcTemplate.query(SEARCH_FREE, FreeWindowCondition.addTo(parameters, start, end), ITEM_DTO);
+    }
+
+    //каждое слово ищется как префикс, как и в прежнем поиске подстроки: "дрел" находит "дрель"
+    static String toPrefixQuery(String text) {
+        return Arrays.stream(text.split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .map(word -> word + ":*")
+                .collect(Collectors.joining(" & "));
+    }
+}
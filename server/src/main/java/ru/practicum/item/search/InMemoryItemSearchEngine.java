@@ -0,0 +1,312 @@
+package ru.practicum.item.search;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.booking.BookingRepository;
+import ru.practicum.item.ItemWrittenEvent;
+import ru.practicum.item.ItemRepository;
+import ru.practicum.item.dto.ItemDto;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+//поиск подстроки по индексу в памяти: триграммы названия и описания -> отсортированные id доступных вещей.
+//кандидаты из пересечения списков проверяются на вхождение подстроки, поэтому результат совпадает с like
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "memory")
+public class InMemoryItemSearchEngine implements ItemSearchEngine {
+    private static final int GRAM = 3;
+    private static final int OCCUPANCY_BATCH = 500; //сколько найденных вещей проверяем на занятость одним запросом
+
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<String, LongPostings> postings = new HashMap<>();
+    private Map<Long, Document> documents = new HashMap<>();
+    private LongPostings allIds = new LongPostings();
+
+    //изменения, пришедшие во время полного перестроения, применяются повторно после него
+    private final Set<Long> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private volatile boolean rebuilding;
+    private volatile LocalDateTime rebuiltAt;
+    private final AtomicLong drift = new AtomicLong();
+    private final Counter updates;
+    private final Counter rebuilds;
+
+    public InMemoryItemSearchEngine(ItemRepository itemRepository, BookingRepository bookingRepository,
+                                    MeterRegistry meterRegistry) {
+        this.itemRepository = itemRepository;
+        this.bookingRepository = bookingRepository;
+        this.updates = meterRegistry.counter("items.search.index.updates");
+        this.rebuilds = meterRegistry.counter("items.search.index.rebuilds");
+        Gauge.builder("items.search.index.documents", this, engine -> engine.getStats().getDocuments())
+                .register(meterRegistry);
+        Gauge.builder("items.search.index.terms", this, engine -> engine.getStats().getTerms())
+                .register(meterRegistry);
+        Gauge.builder("items.search.index.drift", drift, AtomicLong::get)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public List<ItemDto> search(String text, int from, int size) {
+        String needle = text.toLowerCase();
+        int skip = from > 0 ? from / size * size : 0;
+        List<ItemDto> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (long id : candidates(needle)) {
+                Document document = documents.get(id);
+                if (!document.contains(needle)) {
+                    continue;
+                }
+                if (skip > 0) {
+                    skip--;
+                    continue;
+                }
+                result.add(document.toItemDto());
+                if (result.size() == size) {
+                    break;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    //бронирований в индексе нет: найденные вещи по порядку проверяются на занятость пачками, по запросу на пачку,
+    //пока не наберется страница
+    @Override
+    public List<ItemDto> searchFree(String text, LocalDateTime start, LocalDateTime end, int from, int size) {
+        String needle = text.toLowerCase();
+        int skip = from > 0 ? from / size * size : 0;
+        List<ItemDto> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (long id : candidates(needle)) {
+                Document document = documents.get(id);
+                if (document.contains(needle)) {
+                    matches.add(document.toItemDto());
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<ItemDto> result = new ArrayList<>();
+        for (int batch = 0; batch < matches.size() && result.size() < size; batch += OCCUPANCY_BATCH) {
+            List<ItemDto> items = matches.subList(batch, Math.min(batch + OCCUPANCY_BATCH, matches.size()));
+            Set<Long> occupied = new HashSet<>(bookingRepository.findItemIdsOccupiedBetween(items.stream()
+                    .map(ItemDto::getId)
+                    .collect(Collectors.toList()), BookingRepository.OCCUPYING, start, end));
+            for (ItemDto item : items) {
+                if (occupied.contains(item.getId())) {
+                    continue;
+                }
+                if (skip > 0) {
+                    skip--;
+                    continue;
+                }
+                result.add(item);
+                if (result.size() == size) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onItemWritten(ItemWrittenEvent event) {
+        reindex(event.getItemId());
+    }
+
+    public void reindex(long itemId) {
+        if (rebuilding) {
+            changedDuringRebuild.add(itemId);
+        }
+        ItemDto item = itemRepository.findDtoById(itemId)
+                .filter(ItemDto::getAvailable)
+                .orElse(null);
+        lock.writeLock().lock();
+        try {
+            remove(itemId);
+            if (item != null) {
+                add(new Document(item));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        updates.increment();
+    }
+
+    public synchronized ItemSearchIndexStats rebuild() {
+        rebuilding = true;
+        changedDuringRebuild.clear();
+        Map<String, LongPostings> newPostings = new HashMap<>();
+        Map<Long, Document> newDocuments = new HashMap<>();
+        LongPostings newIds = new LongPostings();
+        try {
+            for (ItemDto item : itemRepository.findAllAvailable()) {
+                Document document = new Document(item);
+                newDocuments.put(item.getId(), document);
+                newIds.add(item.getId());
+                for (String gram : document.grams()) {
+                    newPostings.computeIfAbsent(gram, key -> new LongPostings()).add(item.getId());
+                }
+            }
+            lock.writeLock().lock();
+            try {
+                drift.set(countDrift(documents, newDocuments));
+                postings = newPostings;
+                documents = newDocuments;
+                allIds = newIds;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            rebuilding = false;
+        }
+        for (Long itemId : changedDuringRebuild) {
+            reindex(itemId);
+        }
+        rebuiltAt = LocalDateTime.now();
+        rebuilds.increment();
+        ItemSearchIndexStats stats = getStats();
+        log.info("Индекс поиска вещей перестроен: {}", stats);
+        return stats;
+    }
+
+    public ItemSearchIndexStats getStats() {
+        lock.readLock().lock();
+        try {
+            return new ItemSearchIndexStats(documents.size(), postings.size(), (long) updates.count(),
+                    (long) rebuilds.count(), drift.get(), rebuiltAt);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //короткий запрос не содержит триграмм - проверяем все вещи, иначе пересекаем списки по всем его триграммам
+    private long[] candidates(String needle) {
+        if (needle.length() < GRAM) {
+            return allIds.toArray();
+        }
+        long[] result = null;
+        for (String gram : gramsOf(needle)) {
+            LongPostings ids = postings.get(gram);
+            if (ids == null) {
+                return new long[0];
+            }
+            result = result == null ? ids.toArray() : LongPostings.intersect(result, ids);
+            if (result.length == 0) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private void add(Document document) {
+        documents.put(document.id, document);
+        allIds.add(document.id);
+        for (String gram : document.grams()) {
+            postings.computeIfAbsent(gram, key -> new LongPostings()).add(document.id);
+        }
+    }
+
+    private void remove(long itemId) {
+        Document old = documents.remove(itemId);
+        if (old == null) {
+            return;
+        }
+        allIds.remove(itemId);
+        for (String gram : old.grams()) {
+            LongPostings ids = postings.get(gram);
+            ids.remove(itemId);
+            if (ids.size() == 0) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    //вещи, которые индекс до перестроения показывал не так, как база: лишние, пропущенные и устаревшие
+    private static long countDrift(Map<Long, Document> before, Map<Long, Document> after) {
+        long count = before.keySet().stream()
+                .filter(id -> !after.containsKey(id))
+                .count();
+        for (Map.Entry<Long, Document> entry : after.entrySet()) {
+            if (!entry.getValue().equals(before.get(entry.getKey()))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static Set<String> gramsOf(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static class Document {
+        private final long id;
+        private final ItemDto item;
+        private final String name;
+        private final String description;
+
+        Document(ItemDto item) {
+            this.id = item.getId();
+            this.item = new ItemDto(item.getId(), item.getName(), item.getDescription(), item.getAvailable(),
+                    item.getOwner(), item.getRequestId());
+            this.name = item.getName().toLowerCase();
+            this.description = item.getDescription().toLowerCase();
+        }
+
+        boolean contains(String needle) {
+            return name.contains(needle) || description.contains(needle);
+        }
+
+        Set<String> grams() {
+            Set<String> grams = gramsOf(name);
+            grams.addAll(gramsOf(description));
+            return grams;
+        }
+
+        ItemDto toItemDto() {
+            return new ItemDto(item.getId(), item.getName(), item.getDescription(), item.getAvailable(),
+                    item.getOwner(), item.getRequestId());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Document && item.equals(((Document) o).item);
+        }
+
+        @Override
+        public int hashCode() {
+            return item.hashCode();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package ru.practicum.item.search;
+
+import org.springframework.jdbc.core.RowMapper;
+import ru.practicum.item.dto.ItemDto;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+//строка выборки items (id, name, description, available, owner_id, request_id) в ItemDto
+class ItemDtoRowMapper implements RowMapper<ItemDto> {
+    @Override
+    public ItemDto mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new ItemDto(rs.getLong("id"), rs.getString("name"), rs.getString("description"),
+                rs.getBoolean("available"), rs.getLong("owner_id"), rs.getObject("request_id", Long.class));
+    }
+}
@@ -0,0 +1,251 @@
+package ru.practicum.item.search;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.exception.ItemValidationException;
+import ru.practicum.item.ItemRepository;
+import ru.practicum.item.ItemWrittenEvent;
+import ru.practicum.item.dto.ItemDto;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+//подсказки названий доступных вещей по префиксу. Названия лежат в префиксном дереве с началом каждого слова,
+//каждый узел хранит готовый список лучших названий своего поддерева, поэтому ответ - это спуск по префиксу
+@Component
+public class ItemNameSuggester {
+    //чаще встречающиеся названия выше, при равенстве - по алфавиту
+    private static final Comparator<Suggestion> BEST_FIRST = Comparator.comparingInt(Suggestion::getCount).reversed()
+            .thenComparing(Suggestion::getKey);
+
+    private final ItemRepository itemRepository;
+    private final int maxSize;
+    private final Timer timer;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, String> names = new HashMap<>(); //название каждой проиндексированной вещи
+    private final Map<String, Suggestion> suggestions = new HashMap<>(); //название в нижнем регистре -> число вещей
+    private Node root = new Node();
+
+    public ItemNameSuggester(ItemRepository itemRepository,
+                             MeterRegistry meterRegistry,
+                             @Value("${shareit.suggest.max-size:10}") int maxSize) {
+        this.itemRepository = itemRepository;
+        this.maxSize = maxSize;
+        this.timer = Timer.builder("items.suggest")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    public List<String> suggest(String prefix, int size) {
+        if (size <= 0) {
+            throw new ItemValidationException("Количество подсказок должно быть больше нуля");
+        }
+        return timer.record(() -> {
+            String key = prefix.toLowerCase().stripLeading();
+            if (key.isEmpty()) {
+                return List.of();
+            }
+            lock.readLock().lock();
+            try {
+                Node node = root;
+                for (int i = 0; i < key.length() && node != null; i++) {
+                    node = node.child(key.charAt(i));
+                }
+                if (node == null) {
+                    return List.of();
+                }
+                return node.top.stream()
+                        .limit(Math.min(size, maxSize))
+                        .map(Suggestion::getName)
+                        .collect(Collectors.toList());
+            } finally {
+                lock.readLock().unlock();
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        List<ItemDto> items = itemRepository.findAllAvailable();
+        lock.writeLock().lock();
+        try {
+            root = new Node();
+            names.clear();
+            suggestions.clear();
+            for (ItemDto item : items) {
+                add(item);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onItemWritten(ItemWrittenEvent event) {
+        ItemDto item = itemRepository.findDtoById(event.getItemId())
+                .filter(ItemDto::getAvailable)
+                .orElse(null);
+        lock.writeLock().lock();
+        try {
+            remove(event.getItemId());
+            if (item != null) {
+                add(item);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(ItemDto item) {
+        String key = item.getName().toLowerCase();
+        names.put(item.getId(), item.getName());
+        Suggestion suggestion = suggestions.computeIfAbsent(key, Suggestion::new);
+        suggestion.variants.merge(item.getName(), 1, Integer::sum);
+        suggestion.count++;
+        update(suggestion);
+    }
+
+    private void remove(long itemId) {
+        String name = names.remove(itemId);
+        if (name == null) {
+            return;
+        }
+        String key = name.toLowerCase();
+        Suggestion suggestion = suggestions.get(key);
+        suggestion.variants.computeIfPresent(name, (variant, count) -> count > 1 ? count - 1 : null);
+        suggestion.count--;
+        if (suggestion.count == 0) {
+            suggestions.remove(key);
+        }
+        update(suggestion);
+    }
+
+    //название доступно по префиксу с начала каждого своего слова: "дре" подскажет и "Ударная дрель"
+    private void update(Suggestion suggestion) {
+        String key = suggestion.key;
+        for (int start = 0; start < key.length(); start++) {
+            if (Character.isLetterOrDigit(key.charAt(start))
+                    && (start == 0 || !Character.isLetterOrDigit(key.charAt(start - 1)))) {
+                update(key.substring(start), suggestion);
+            }
+        }
+    }
+
+    private void update(String word, Suggestion suggestion) {
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        path.push(node);
+        for (int i = 0; i < word.length(); i++) {
+            node = suggestion.count > 0 ? node.childOrNew(word.charAt(i)) : node.child(word.charAt(i));
+            if (node == null) {
+                return;
+            }
+            path.push(node);
+        }
+        if (suggestion.count > 0) {
+            node.terminal.add(suggestion);
+        } else {
+            node.terminal.remove(suggestion);
+        }
+        //списки лучших пересчитываются снизу вверх только вдоль пути изменённого названия
+        while (!path.isEmpty()) {
+            Node current = path.pop();
+            current.top = best(current);
+            if (current.isEmpty() && !path.isEmpty()) {
+                path.peek().removeChild(current);
+            }
+        }
+    }
+
+    private List<Suggestion> best(Node node) {
+        Set<Suggestion> candidates = new HashSet<>(node.terminal);
+        for (Node child : node.children) {
+            candidates.addAll(child.top);
+        }
+        return candidates.stream()
+                .sorted(BEST_FIRST)
+                .limit(maxSize)
+                .collect(Collectors.toList());
+    }
+
+    //одно название в нижнем регистре; показывается в написании, которое встречается у вещей чаще
+    @Getter
+    @RequiredArgsConstructor
+    private static class Suggestion {
+        private final String key;
+        private final Map<String, Integer> variants = new HashMap<>(1);
+        private int count;
+
+        String getName() {
+            return variants.entrySet().stream()
+                    .min(Map.Entry.<String, Integer>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .map(Map.Entry::getKey)
+                    .orElse(key);
+        }
+    }
+
+    //узел дерева: дети в массивах, отсортированных по символу
+    private static class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private final Set<Suggestion> terminal = new HashSet<>(1); //названия, слово которых заканчивается здесь
+        private List<Suggestion> top = List.of();
+
+        Node child(char c) {
+            int position = Arrays.binarySearch(keys, c);
+            return position >= 0 ? children[position] : null;
+        }
+
+        Node childOrNew(char c) {
+            int position = Arrays.binarySearch(keys, c);
+            if (position >= 0) {
+                return children[position];
+            }
+            position = -position - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, position);
+            System.arraycopy(children, 0, newChildren, 0, position);
+            newKeys[position] = c;
+            newChildren[position] = new Node();
+            System.arraycopy(keys, position, newKeys, position + 1, keys.length - position);
+            System.arraycopy(children, position, newChildren, position + 1, children.length - position);
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[position];
+        }
+
+        void removeChild(Node child) {
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] == child) {
+                    char[] newKeys = new char[keys.length - 1];
+                    Node[] newChildren = new Node[children.length - 1];
+                    System.arraycopy(keys, 0, newKeys, 0, i);
+                    System.arraycopy(children, 0, newChildren, 0, i);
+                    System.arraycopy(keys, i + 1, newKeys, i, keys.length - i - 1);
+                    System.arraycopy(children, i + 1, newChildren, i, children.length - i - 1);
+                    keys = newKeys;
+                    children = newChildren;
+                    return;
+                }
+            }
+        }
+
+        boolean isEmpty() {
+            return children.length == 0 && terminal.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package ru.practicum.item.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.item.ItemService;
+import ru.practicum.item.ItemWrittenEvent;
+import ru.practicum.item.dto.ItemDto;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+//кэш id найденных вещей. Любая запись вещи повышает версию: результаты, посчитанные до неё, больше не читаются
+@Component
+public class ItemSearchCache {
+    private final ItemService itemService;
+    private final Cache<SearchKey, List<Long>> results;
+    private final Cache<String, QueryStats> queries; //счетчики попаданий по самым частым запросам
+    private final AtomicLong version = new AtomicLong();
+
+    public ItemSearchCache(ItemService itemService,
+                           MeterRegistry meterRegistry,
+                           @Value("${shareit.cache.item-search.maximum-size:10000}") long maximumSize,
+                           @Value("${shareit.cache.item-search.expire-after-write:10m}") Duration expireAfterWrite,
+                           @Value("${shareit.cache.item-search.tracked-queries:1000}") long trackedQueries) {
+        this.itemService = itemService;
+        this.results = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.queries = Caffeine.newBuilder()
+                .maximumSize(trackedQueries)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, results, "itemSearch");
+    }
+
+    public List<ItemDto> search(String text, int from, int size) {
+        //поиск не зависит от регистра и пробелов по краям, а from внутри одной страницы дает тот же результат.
+        //Искать нужно именно ключ кэша, иначе под одним ключом окажутся ответы на разные запросы
+        String query = text.strip().toLowerCase(Locale.ROOT);
+        if (query.isEmpty()) {
+            return itemService.getItemsBySearch(query, from, size);
+        }
+        int page = from > 0 ? from / size : 0;
+        long current = version.get();
+        SearchKey key = new SearchKey(current, query, page, size);
+        QueryStats stats = queries.get(query, q -> new QueryStats());
+        List<Long> ids = results.getIfPresent(key);
+        if (ids != null) {
+            stats.hits.increment();
+            return itemService.getItemsByIds(ids);
+        }
+        stats.misses.increment();
+        List<ItemDto> items = itemService.getItemsBySearch(query, page * size, size);
+        results.put(key, items.stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList()));
+        return items;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemWritten(ItemWrittenEvent event) {
+        version.incrementAndGet();
+        results.invalidateAll();
+    }
+
+    //самые частые запросы с долей попаданий в кэш, по убыванию числа обращений
+    public List<QueryHitRatio> getTopQueries(int limit) {
+        return queries.asMap().entrySet().stream()
+                .map(entry -> new QueryHitRatio(entry.getKey(), entry.getValue().hits.sum(),
+                        entry.getValue().misses.sum()))
+                .sorted(Comparator.comparingLong(QueryHitRatio::getCalls).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Data
+    private static class SearchKey {
+        private final long version;
+        private final String query;
+        private final int page;
+        private final int size;
+    }
+
+    private static class QueryStats {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class QueryHitRatio {
+        private String query;
+        private long hits;
+        private long misses;
+
+        public long getCalls() {
+            return hits + misses;
+        }
+
+        public double getHitRatio() {
+            return getCalls() == 0 ? 0 : (double) hits / getCalls();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package ru.practicum.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+//GET /actuator/searchcache?limit=N - самые частые поисковые запросы и доля попаданий в кэш по каждому
+@Component
+@RequiredArgsConstructor
+@Endpoint(id = "searchcache")
+public class ItemSearchCacheEndpoint {
+    private final ItemSearchCache itemSearchCache;
+
+    @ReadOperation
+    public List<ItemSearchCache.QueryHitRatio> topQueries(@Nullable Integer limit) {
+        return itemSearchCache.getTopQueries(limit == null ? 100 : limit);
+    }
+}
@@ -0,0 +1,14 @@
+package ru.practicum.item.search;
+
+import ru.practicum.item.dto.ItemDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+//поиск доступных вещей по тексту, реализация выбирается свойством shareit.search.engine
+public interface ItemSearchEngine {
+    List<ItemDto> search(String text, int from, int size);
+
+    //те же вещи, но только свободные весь период [start, end): без пересекающихся WAITING и APPROVED бронирований
+    List<ItemDto> searchFree(String text, LocalDateTime start, LocalDateTime end, int from, int size);
+}
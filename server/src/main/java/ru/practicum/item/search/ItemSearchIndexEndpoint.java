@@ -0,0 +1,27 @@
+package ru.practicum.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+//GET /actuator/searchindex - состояние индекса, POST /actuator/searchindex - полное перестроение из базы
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "memory")
+@Endpoint(id = "searchindex")
+public class ItemSearchIndexEndpoint {
+    private final InMemoryItemSearchEngine searchEngine;
+
+    @ReadOperation
+    public ItemSearchIndexStats stats() {
+        return searchEngine.getStats();
+    }
+
+    @WriteOperation
+    public ItemSearchIndexStats rebuild() {
+        return searchEngine.rebuild();
+    }
+}
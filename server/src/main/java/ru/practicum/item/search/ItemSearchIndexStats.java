@@ -0,0 +1,19 @@
+package ru.practicum.item.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemSearchIndexStats {
+    private int documents; //проиндексированные доступные вещи
+    private int terms; //различные триграммы
+    private long updates; //точечные обновления после изменения вещей
+    private long rebuilds; //полные перестроения
+    private long drift; //расхождений с базой, найденных последним перестроением
+    private LocalDateTime rebuiltAt; //время последнего перестроения
+}
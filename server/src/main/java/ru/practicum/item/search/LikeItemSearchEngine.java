@@ -0,0 +1,31 @@
+package ru.practicum.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import ru.practicum.booking.BookingRepository;
+import ru.practicum.item.ItemRepository;
+import ru.practicum.item.dto.ItemDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+//поиск подстроки через like, работает на любой базе (в том числе H2 в тестах)
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "like", matchIfMissing = true)
+public class LikeItemSearchEngine implements ItemSearchEngine {
+    private final ItemRepository itemRepository;
+
+    @Override
+    public List<ItemDto> search(String text, int from, int size) {
+        return itemRepository.findAllBySearch(text, PageRequest.of(from > 0 ? from / size : 0, size)).getContent();
+    }
+
+    @Override
+    public List<ItemDto> searchFree(String text, LocalDateTime start, LocalDateTime end, int from, int size) {
+        return itemRepository.findAllFreeBySearch(text, BookingRepository.OCCUPYING, start, end,
+                PageRequest.of(from > 0 ? from / size : 0, size)).getContent();
+    }
+}
@@ -0,0 +1,60 @@
+package ru.practicum.item.search;
+
+import java.util.Arrays;
+
+//отсортированный по возрастанию список id вещей на примитивном массиве
+class LongPostings {
+    private long[] ids = new long[4];
+    private int size;
+
+    void add(long id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position >= 0) {
+            return;
+        }
+        position = -position - 1;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        System.arraycopy(ids, position, ids, position + 1, size - position);
+        ids[position] = id;
+        size++;
+    }
+
+    void remove(long id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position < 0) {
+            return;
+        }
+        System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+        size--;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    //пересечение двух отсортированных списков слиянием
+    static long[] intersect(long[] left, LongPostings right) {
+        long[] result = new long[Math.min(left.length, right.size)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < left.length && j < right.size) {
+            if (left[i] < right.ids[j]) {
+                i++;
+            } else if (left[i] > right.ids[j]) {
+                j++;
+            } else {
+                result[count++] = left[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+}
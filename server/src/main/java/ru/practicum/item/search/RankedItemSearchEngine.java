@@ -0,0 +1,108 @@
+package ru.practicum.item.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.booking.BookingRepository;
+import ru.practicum.item.ItemRepository;
+import ru.practicum.item.dto.ItemDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+//поиск подстроки с ранжированием: совпадение в названии важнее совпадения в описании, точное и с начала слова -
+//важнее вхождения в середину. Найденное читается потоком, в памяти держится только куча из from + size лучших
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "ranked")
+public class RankedItemSearchEngine implements ItemSearchEngine {
+    //худший результат - в голове кучи: меньше очков, при равенстве - больший id
+    private static final Comparator<Scored> WORST_FIRST = Comparator.comparingInt(Scored::getScore)
+            .thenComparing(Comparator.comparingLong(Scored::getId).reversed());
+
+    private final ItemRepository itemRepository;
+
+    @Override
+    public List<ItemDto> search(String text, int from, int size) {
+        try (Stream<ItemDto> items = itemRepository.streamAllBySearch(text)) {
+            return best(items, text, from, size);
+        }
+    }
+
+    @Override
+    public List<ItemDto> searchFree(String text, LocalDateTime start, LocalDateTime end, int from, int size) {
+        try (Stream<ItemDto> items = itemRepository.streamAllFreeBySearch(text, BookingRepository.OCCUPYING, start,
+                end)) {
+            return best(items, text, from, size);
+        }
+    }
+
+    private static List<ItemDto> best(Stream<ItemDto> items, String text, int from, int size) {
+        int skip = from > 0 ? from / size * size : 0;
+        int limit = skip + size;
+        String needle = text.toLowerCase();
+        PriorityQueue<Scored> top = new PriorityQueue<>(limit + 1, WORST_FIRST);
+        items.forEach(item -> {
+            Scored scored = new Scored(item, score(item, needle));
+            if (top.size() < limit) {
+                top.add(scored);
+            } else if (WORST_FIRST.compare(scored, top.peek()) > 0) {
+                top.poll();
+                top.add(scored);
+            }
+        });
+        List<Scored> best = new ArrayList<>(top);
+        best.sort(WORST_FIRST.reversed());
+        return best.stream()
+                .skip(skip)
+                .map(Scored::getItem)
+                .collect(Collectors.toList());
+    }
+
+    //любое совпадение в названии выше любого совпадения в описании
+    static int score(ItemDto item, String needle) {
+        int name = matchScore(item.getName().toLowerCase(), needle);
+        if (name > 0) {
+            return 4 + name;
+        }
+        return matchScore(item.getDescription().toLowerCase(), needle);
+    }
+
+    //4 - текст совпадает целиком, 3 - начинается с запроса, 2 - слово начинается с запроса, 1 - вхождение
+    private static int matchScore(String text, String needle) {
+        if (text.equals(needle)) {
+            return 4;
+        }
+        if (text.startsWith(needle)) {
+            return 3;
+        }
+        int position = text.indexOf(needle);
+        if (position < 0) {
+            return 0;
+        }
+        for (; position > 0; position = text.indexOf(needle, position + 1)) {
+            if (!Character.isLetterOrDigit(text.charAt(position - 1))) {
+                return 2;
+            }
+        }
+        return 1;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Scored {
+        private final ItemDto item;
+        private final int score;
+
+        long getId() {
+            return item.getId();
+        }
+    }
+}
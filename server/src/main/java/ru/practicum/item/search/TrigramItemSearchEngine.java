@@ -0,0 +1,48 @@
+package ru.practicum.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.practicum.item.dto.ItemDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+//тот же поиск подстроки, что и like, но в форме, которую обслуживают триграммные GIN-индексы
+//по lower(name) и lower(description) (pg_trgm, миграция V5)
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "trigram")
+public class TrigramItemSearchEngine implements ItemSearchEngine {
+    private static final String MATCH = "select i.id, i.name, i.description, i.available, i.owner_id, i.request_id " +
+            "from items i " +
+            "where (lower(i.name) like concat('%', lower(:text), '%') " +
+            "or lower(i.description) like concat('%', lower(:text), '%')) " +
+            "and i.available = true ";
+    private static final String PAGE = "order by i.id limit :size offset :offset";
+    private static final String SEARCH = MATCH + PAGE;
+    private static final String SEARCH_FREE = MATCH + FreeWindowCondition.SQL + PAGE;
+    private static final ItemDtoRowMapper ITEM_DTO = new ItemDtoRowMapper();
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<ItemDto> search(String text, int from, int size) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("text", text)
+                .addValue("size", size)
+                .addValue("offset", from > 0 ? from / size * size : 0);
+        return jdbcTemplate.query(SEARCH, parameters, ITEM_DTO);
+    }
+
+    @Override
+    public List<ItemDto> searchFree(String text, LocalDateTime start, LocalDateTime end, int from, int size) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("text", text)
+                .addValue("size", size)
+                .addValue("offset", from > 0 ? from / size * size : 0);
+        return jdbcTemplate.query(SEARCH_FREE, FreeWindowCondition.addTo(parameters, start, end), ITEM_DTO);
+    }
+}
@@ -0,0 +1,61 @@
+package ru.practicum.pagination;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.exception.CursorValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class Cursor {
+    //позиции первой страницы: раньше/позже любой реальной даты и любого id
+    public static final Cursor LATEST = new Cursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+    public static final Cursor EARLIEST = new Cursor(LocalDateTime.of(1970, 1, 1, 0, 0), 0L);
+
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime position; //дата сортировки, null для курсора только по id
+    private final long id; //id последней отданной записи
+
+    public static String encode(LocalDateTime position, long id) {
+        return encode(position + SEPARATOR + id);
+    }
+
+    public static String encode(long id) {
+        return encode(String.valueOf(id));
+    }
+
+    //пустой токен означает первую страницу
+    public static Cursor decode(String token, Cursor first) {
+        if (token.isEmpty()) {
+            return first;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.indexOf(SEPARATOR);
+            if (separator < 0) {
+                return new Cursor(null, Long.parseLong(value));
+            }
+            return new Cursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new CursorValidationException("Неверный курсор: " + token);
+        }
+    }
+
+    public LocalDateTime getPositionOrThrow() {
+        if (position == null) {
+            throw new CursorValidationException("Курсор не содержит даты");
+        }
+        return position;
+    }
+
+    private static String encode(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,44 @@
+package ru.practicum.pagination;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
+import ru.practicum.exception.CursorValidationException;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Data
+@AllArgsConstructor
+public class CursorPage<T> {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private List<T> content;
+    private String next; //токен следующей страницы, null если страница последняя
+
+    //запрашиваем на одну запись больше, чтобы узнать о следующей странице без count(*)
+    public static Pageable limit(int size) {
+        if (size < 1) {
+            throw new CursorValidationException("Размер страницы должен быть положительным");
+        }
+        return PageRequest.of(0, size + 1);
+    }
+
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, String> cursorOf) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> content = rows.subList(0, size);
+        return new CursorPage<>(content, cursorOf.apply(content.get(size - 1)));
+    }
+
+    public ResponseEntity<List<T>> toResponse() {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (next != null) {
+            response.header(NEXT_CURSOR_HEADER, next);
+        }
+        return response.body(content);
+    }
+}
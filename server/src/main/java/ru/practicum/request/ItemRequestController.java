@@ -1,6 +1,7 @@
 package ru.practicum.request;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.item.ItemService;
@@ -41,16 +42,14 @@ public class ItemRequestController {
     }
 
     @GetMapping("/all")
-    public List<ItemRequestDto> getAll(@RequestHeader("X-Sharer-User-Id") long userId,
-                                       @RequestParam(value = "from", defaultValue = "0") int from,
-                                       @RequestParam(value = "size", defaultValue = "10") int size) {
-        userService.getUserById(userId);
-        List<ItemRequestDto> itemRequestDtos = ItemRequestMapper
-                .toItemRequestDtoList(itemRequestService.getAllRequest(userId, from, size));
-        for (ItemRequestDto itemRequestDto : itemRequestDtos) {
-            addResponse(itemRequestDto);
+    public ResponseEntity<List<ItemRequestDto>> getAll(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                       @RequestParam(value = "from", defaultValue = "0") int from,
+                                                       @RequestParam(value = "size", defaultValue = "10") int size,
+                                                       @RequestParam(value = "cursor", required = false) String cursor) {
+        if (cursor != null) {
+            return itemRequestService.getAllRequest(userId, cursor, size).toResponse();
         }
-        return itemRequestDtos;
+        return ResponseEntity.ok(itemRequestService.getAllRequest(userId, from, size));
     }
 
     @GetMapping("/{requestId}")
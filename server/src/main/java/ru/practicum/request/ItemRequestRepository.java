@@ -4,19 +4,32 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.practicum.request.dto.ItemRequestDto;
 import ru.practicum.request.model.ItemRequest;
-import ru.practicum.user.model.User;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
     ItemRequest save(ItemRequest itemRequest);
 
-    List<ItemRequest> findByRequestor(User requestor, Sort sort);
+    List<ItemRequest> findByRequestorId(Long requestorId, Sort sort);
 
-    ItemRequest getItemRequestById(long id);
+    @Query(value = "select new ru.practicum.request.dto.ItemRequestDto(r.id, r.description, r.created) " +
+            "from ItemRequest r where r.requestor.id <> ?1",
+            countQuery = "select count(r) from ItemRequest r where r.requestor.id <> ?1")
+    Page<ItemRequestDto> findAllByRequestorIdNot(Long requestorId, Pageable pageable); //чужие запросы сразу в dto
 
-    Page<ItemRequest> findAllByRequestorNot(User requestor, Pageable pageable);
+    @Query("select new ru.practicum.request.dto.ItemRequestDto(r.id, r.description, r.created) " +
+            "from ItemRequest r where r.requestor.id <> :userId " +
+            "and (r.created < :cursorCreated or (r.created = :cursorCreated and r.id < :cursorId)) " +
+            "order by r.created desc, r.id desc")
+    List<ItemRequestDto> findAllByRequestorIdNotBefore(@Param("userId") Long requestorId,
+                                                       @Param("cursorCreated") LocalDateTime cursorCreated,
+                                                       @Param("cursorId") Long cursorId,
+                                                       Pageable pageable); //keyset-страница чужих запросов
 }
@@ -1,6 +1,8 @@
 package ru.practicum.request;
 
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.pagination.CursorPage;
+import ru.practicum.request.dto.ItemRequestDto;
 import ru.practicum.request.model.ItemRequest;
 
 import java.util.List;
@@ -13,7 +15,9 @@ public interface ItemRequestService {
 
     List<ItemRequest> getAllMineRequests(long id);
 
-    List<ItemRequest> getAllRequest(long userId, int from, int size);
+    List<ItemRequestDto> getAllRequest(long userId, int from, int size);
+
+    CursorPage<ItemRequestDto> getAllRequest(long userId, String cursor, int size);
 
     ItemRequest getRequestById(long id);
 }
@@ -9,11 +9,18 @@ import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.exception.ItemRequestNotFoundException;
 import ru.practicum.exception.ItemRequestValidationException;
 import ru.practicum.exception.UserNotFoundException;
+import ru.practicum.item.ItemRepository;
+import ru.practicum.item.dto.ItemDto;
+import ru.practicum.pagination.Cursor;
+import ru.practicum.pagination.CursorPage;
+import ru.practicum.request.dto.ItemRequestDto;
 import ru.practicum.request.model.ItemRequest;
 import ru.practicum.user.UserRepository;
-import ru.practicum.user.model.User;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
@@ -21,34 +28,59 @@ import java.util.List;
 public class ItemRequestServiceImpl implements ItemRequestService {
     private final ItemRequestRepository itemRequestRepository;
     private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
 
     @Override
     public ItemRequest create(Long userId, ItemRequest itemRequest) {
         if (itemRequest.getDescription() == null || itemRequest.getDescription().isEmpty()) {
             throw new ItemRequestValidationException("Отсутствует описание запроса");
         }
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new UserNotFoundException("user не найден"));
-        itemRequest.setRequestor(user);
+        checkUserExists(userId);
+        itemRequest.setRequestor(userRepository.getReferenceById(userId));
         itemRequest = itemRequestRepository.save(itemRequest);
         return itemRequest;
     }
 
     @Override
     public List<ItemRequest> getAllMineRequests(long id) {
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new UserNotFoundException("user не найден"));
+        checkUserExists(id);
         Sort sortByCreated = Sort.by(Sort.Direction.DESC, "created");
-        return itemRequestRepository.findByRequestor(user, sortByCreated);
+        return itemRequestRepository.findByRequestorId(id, sortByCreated);
     }
 
     @Override
-    public List<ItemRequest> getAllRequest(long userId, int from, int size) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new UserNotFoundException("user не найден"));
+    public List<ItemRequestDto> getAllRequest(long userId, int from, int size) {
+        checkUserExists(userId);
         Sort sortByCreated = Sort.by(Sort.Direction.DESC, "created");
         Pageable pageable = PageRequest.of(from, size, sortByCreated);
-        return itemRequestRepository.findAllByRequestorNot(user, pageable).getContent();
+        return withItems(itemRequestRepository.findAllByRequestorIdNot(userId, pageable).getContent());
+    }
+
+    @Override
+    public CursorPage<ItemRequestDto> getAllRequest(long userId, String cursor, int size) {
+        checkUserExists(userId);
+        Cursor after = Cursor.decode(cursor, Cursor.LATEST);
+        List<ItemRequestDto> requests = itemRequestRepository.findAllByRequestorIdNotBefore(userId,
+                after.getPositionOrThrow(), after.getId(), CursorPage.limit(size));
+        CursorPage<ItemRequestDto> page = CursorPage.of(requests, size,
+                request -> Cursor.encode(request.getCreated(), request.getId()));
+        withItems(page.getContent());
+        return page;
+    }
+
+    private List<ItemRequestDto> withItems(List<ItemRequestDto> requests) {
+        if (requests.isEmpty()) {
+            return requests;
+        }
+        //ответы на все запросы страницы загружаем одним запросом
+        Map<Long, List<ItemDto>> items = itemRepository.findByRequestIdIn(requests.stream()
+                        .map(ItemRequestDto::getId)
+                        .collect(Collectors.toList())).stream()
+                .collect(Collectors.groupingBy(ItemDto::getRequestId));
+        for (ItemRequestDto request : requests) {
+            request.setItems(items.getOrDefault(request.getId(), new ArrayList<>()));
+        }
+        return requests;
     }
 
     @Override
@@ -56,4 +88,10 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         return itemRequestRepository.findById(userId)
                 .orElseThrow(() -> new ItemRequestNotFoundException("Запррос не найден"));
     }
+
+    private void checkUserExists(long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new UserNotFoundException("user не найден");
+        }
+    }
 }
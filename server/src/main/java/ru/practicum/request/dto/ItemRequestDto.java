@@ -17,4 +17,8 @@ public class ItemRequestDto implements Serializable {
     private String description; //описание для запрашиваемой вещи
     private LocalDateTime created; //дата и время создания запроса
     private List<ItemDto> items;
+
+    public ItemRequestDto(Long id, String description, LocalDateTime created) {
+        this(id, description, created, null);
+    }
 }
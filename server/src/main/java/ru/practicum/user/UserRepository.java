@@ -1,12 +1,17 @@
 package ru.practicum.user;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import ru.practicum.user.model.User;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_REGION;
+
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     User save(User user); //создать/обновить
@@ -17,5 +22,7 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     void deleteById(long id); //удалить user
 
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = "user-by-email")})
     Optional<User> findByEmail(String email); //найти user по email
 }
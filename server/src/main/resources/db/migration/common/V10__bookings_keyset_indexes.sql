@@ -0,0 +1,4 @@
+-- списки бронирований арендатора сортируются по (start desc, id desc) и в offset-, и в keyset-страницах:
+-- id в индексе дает этот порядок без сортировки и сравнение (start, id) с курсором прямо по индексу
+DROP INDEX IF EXISTS idx_bookings_booker_start;
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_start_id ON bookings (booker_id, start DESC, id DESC);
@@ -0,0 +1,14 @@
+-- карточки для вещей, созданных до появления item_view: дальше их создает и обновляет только запись
+INSERT INTO item_view (item_id, last_booking_id, next_booking_id, comments_count, valid_until)
+SELECT i.id,
+       (SELECT b.id FROM bookings b
+         WHERE b.item_id = i.id AND b.status = 1 AND b.start < LOCALTIMESTAMP
+         ORDER BY b.end_date DESC, b.id FETCH FIRST 1 ROWS ONLY),
+       (SELECT b.id FROM bookings b
+         WHERE b.item_id = i.id AND b.status = 1 AND b.start > LOCALTIMESTAMP
+         ORDER BY b.start, b.id FETCH FIRST 1 ROWS ONLY),
+       (SELECT COUNT(*) FROM comments c WHERE c.item_id = i.id),
+       (SELECT MIN(b.start) FROM bookings b
+         WHERE b.item_id = i.id AND b.status = 1 AND b.start > LOCALTIMESTAMP)
+  FROM items i
+ WHERE NOT EXISTS (SELECT 1 FROM item_view v WHERE v.item_id = i.id);
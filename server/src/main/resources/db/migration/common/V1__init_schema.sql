@@ -0,0 +1,55 @@
+CREATE TABLE IF NOT EXISTS users (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+  name VARCHAR(255) NOT NULL,
+  email VARCHAR(512) NOT NULL,
+  CONSTRAINT pk_user PRIMARY KEY (id),
+  CONSTRAINT UQ_USER_EMAIL UNIQUE (email)
+);
+
+CREATE TABLE IF NOT EXISTS requests (
+ id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+ description VARCHAR NOT NULL,
+ requestor_id BIGINT REFERENCES users(id),
+ created TIMESTAMP WITHOUT TIME ZONE NOT NULL
+ );
+
+CREATE TABLE IF NOT EXISTS items (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  name VARCHAR(255) NOT NULL,
+  description VARCHAR(2000) NOT NULL,
+  available BOOLEAN NOT NULL,
+  owner_id BIGINT NOT NULL REFERENCES users(id),
+  request_id BIGINT REFERENCES requests(id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_items_owner_id ON items (owner_id);
+
+CREATE TABLE IF NOT EXISTS bookings (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  start TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+  end_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+  item_id BIGINT REFERENCES items(id),
+  booker_id BIGINT REFERENCES users(id),
+  status INTEGER NOT NULL
+  );
+
+CREATE INDEX IF NOT EXISTS idx_bookings_item_status_start ON bookings (item_id, status, start);
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_id ON bookings (booker_id);
+
+CREATE TABLE IF NOT EXISTS comments (
+ id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+ text VARCHAR NOT NULL,
+ item_id BIGINT REFERENCES items(id),
+ author_id BIGINT REFERENCES users(id),
+ created TIMESTAMP WITHOUT TIME ZONE NOT NULL
+ );
+
+CREATE INDEX IF NOT EXISTS idx_comments_item_id ON comments (item_id);
+
+CREATE TABLE IF NOT EXISTS item_view (
+ item_id BIGINT PRIMARY KEY REFERENCES items(id) ON DELETE CASCADE,
+ last_booking_id BIGINT REFERENCES bookings(id) ON DELETE SET NULL,
+ next_booking_id BIGINT REFERENCES bookings(id) ON DELETE SET NULL,
+ comments_count INTEGER NOT NULL,
+ valid_until TIMESTAMP WITHOUT TIME ZONE
+ );
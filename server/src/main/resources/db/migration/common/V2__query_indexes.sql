@@ -0,0 +1,9 @@
+-- списки бронирований арендатора: where booker_id = ? order by start desc
+DROP INDEX IF EXISTS idx_bookings_booker_id;
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_start ON bookings (booker_id, start DESC);
+
+-- ленты запросов: requestor_id = ? order by created desc
+CREATE INDEX IF NOT EXISTS idx_requests_requestor_created ON requests (requestor_id, created DESC);
+
+-- поиск ответов на запросы
+CREATE INDEX IF NOT EXISTS idx_items_request_id ON items (request_id);
@@ -0,0 +1,4 @@
+-- версии строк для оптимистичных блокировок: параллельная смена статуса бронирования или правка вещи
+-- поверх уже изменённой строки отклоняется вместо тихой перезаписи
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE items ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,8 @@
+-- идентификаторы выдаются пачками по 50 из последовательностей (pooled-оптимизатор Hibernate): с identity-ключами
+-- Hibernate вынужден вставлять строки по одной, чтобы узнать id, и не может собирать insert'ы в JDBC-пакеты.
+-- Шаг последовательности должен совпадать с allocationSize в @SequenceGenerator
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS requests_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS items_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS bookings_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS comments_seq START WITH 1 INCREMENT BY 50;
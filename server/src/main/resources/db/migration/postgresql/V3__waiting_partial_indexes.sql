@@ -0,0 +1,4 @@
+-- ожидающие подтверждения бронирования (status = 0, WAITING) - малая доля таблицы,
+-- частичные индексы держат только их
+CREATE INDEX IF NOT EXISTS idx_bookings_waiting_booker_start ON bookings (booker_id, start DESC) WHERE status = 0;
+CREATE INDEX IF NOT EXISTS idx_bookings_waiting_item_start ON bookings (item_id, start DESC) WHERE status = 0;
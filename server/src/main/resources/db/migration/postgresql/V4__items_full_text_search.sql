@@ -0,0 +1,7 @@
+-- поисковый вектор поддерживается самой базой при каждой вставке и изменении вещи,
+-- название весит больше описания
+ALTER TABLE items ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (setweight(to_tsvector('russian', coalesce(name, '')), 'A') ||
+                         setweight(to_tsvector('russian', coalesce(description, '')), 'B')) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_items_search_vector ON items USING GIN (search_vector);
@@ -0,0 +1,4 @@
+-- поиск свободных вещей: not exists (... where item_id = ? and status in (0, 1) and start < ? and end_date > ?)
+-- проверяется по индексу без чтения таблицы бронирований
+CREATE INDEX IF NOT EXISTS idx_bookings_occupying_item_start ON bookings (item_id, start) INCLUDE (end_date)
+    WHERE status IN (0, 1);
@@ -0,0 +1,25 @@
+-- существующие id сохраняются: pooled-оптимизатор считает полученное из последовательности значение верхней границей
+-- пачки и выдает id от (значение - 49), поэтому первое значение ставим на max(id) + 50
+SELECT setval('users_seq', COALESCE(MAX(id), 0) + 50, false) FROM users;
+SELECT setval('requests_seq', COALESCE(MAX(id), 0) + 50, false) FROM requests;
+SELECT setval('items_seq', COALESCE(MAX(id), 0) + 50, false) FROM items;
+SELECT setval('bookings_seq', COALESCE(MAX(id), 0) + 50, false) FROM bookings;
+SELECT setval('comments_seq', COALESCE(MAX(id), 0) + 50, false) FROM comments;
+
+-- у id остается один источник значений: identity снимается, значение по умолчанию берется из той же
+-- последовательности, что и у Hibernate. Вставка в обход приложения забирает целую пачку и не пересекается с ней
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE requests ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE items ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE bookings ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE comments ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE users ALTER COLUMN id SET DEFAULT nextval('users_seq');
+ALTER TABLE requests ALTER COLUMN id SET DEFAULT nextval('requests_seq');
+ALTER TABLE items ALTER COLUMN id SET DEFAULT nextval('items_seq');
+ALTER TABLE bookings ALTER COLUMN id SET DEFAULT nextval('bookings_seq');
+ALTER TABLE comments ALTER COLUMN id SET DEFAULT nextval('comments_seq');
+ALTER SEQUENCE users_seq OWNED BY users.id;
+ALTER SEQUENCE requests_seq OWNED BY requests.id;
+ALTER SEQUENCE items_seq OWNED BY items.id;
+ALTER SEQUENCE bookings_seq OWNED BY bookings.id;
+ALTER SEQUENCE comments_seq OWNED BY comments.id;
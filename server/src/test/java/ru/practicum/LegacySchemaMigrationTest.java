@@ -0,0 +1,61 @@
+package ru.practicum;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//база, созданная старым schema.sql до перехода на Flyway: истории миграций в ней нет, таблицы уже есть
+class LegacySchemaMigrationTest {
+
+    @Test
+    void migrate_whenSchemaCreatedBySchemaSql_thenMissingObjectsCreatedAndItemViewFilled() throws IOException {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:legacy;DB_CLOSE_DELAY=-1", "sa", "password");
+        new ResourceDatabasePopulator(new ClassPathResource("db/legacy/schema.sql")).execute(dataSource);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("insert into users (id, name, email) values (1, 'user', 'user@mail.ru')");
+        jdbcTemplate.update("insert into items (id, name, description, available, owner_id) " +
+                "values (1, 'дрель', 'питание от сети', true, 1)");
+        jdbcTemplate.update("insert into bookings (id, start, end_date, item_id, booker_id, status) " +
+                "values (1, timestamp '2000-01-01 10:00:00', timestamp '2000-01-02 10:00:00', 1, 1, 1)");
+        jdbcTemplate.update("insert into bookings (id, start, end_date, item_id, booker_id, status) " +
+                "values (2, timestamp '2999-01-01 10:00:00', timestamp '2999-01-02 10:00:00', 1, 1, 1)");
+        jdbcTemplate.update("insert into comments (id, text, item_id, author_id, created) " +
+                "values (1, 'отличная дрель', 1, 1, timestamp '2000-01-03 10:00:00')");
+
+        //базовая версия берется из настроек приложения, а не задается в тесте
+        Properties properties = PropertiesLoaderUtils.loadProperties(new ClassPathResource("application.properties"));
+        Flyway flyway = Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/common", "classpath:db/migration/h2")
+                .baselineOnMigrate(Boolean.parseBoolean(properties.getProperty("spring.flyway.baseline-on-migrate")))
+                .baselineVersion(properties.getProperty("spring.flyway.baseline-version", "1"))
+                .load();
+        flyway.migrate();
+
+        assertEquals("11", flyway.info().current().getVersion().getVersion());
+        assertEquals(1, count("select count(*) from information_schema.tables where table_name = 'ITEM_VIEW'",
+                jdbcTemplate));
+        assertEquals(1, count("select count(*) from information_schema.indexes " +
+                "where index_name = 'IDX_BOOKINGS_ITEM_STATUS_START'", jdbcTemplate));
+        assertEquals(1, count("select count(*) from users", jdbcTemplate));
+        //карточки уже существующих вещей собираются при миграции, а не при первом чтении
+        assertEquals(Map.of("LAST_BOOKING_ID", 1L, "NEXT_BOOKING_ID", 2L, "COMMENTS_COUNT", 1),
+                jdbcTemplate.queryForMap("select last_booking_id, next_booking_id, comments_count " +
+                        "from item_view where item_id = 1"));
+    }
+
+    private int count(String sql, JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject(sql, Integer.class);
+    }
+}
@@ -0,0 +1,76 @@
+package ru.practicum;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsStringIgnoringCase;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+class SchemaMigrationTest {
+    @Autowired
+    private Flyway flyway;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void migrate_whenContextStarts_thenAllCommonMigrationsApplied() {
+        assertEquals("11", flyway.info().current().getVersion().getVersion());
+        assertEquals(0, flyway.info().pending().length);
+    }
+
+    @Test
+    void migrate_whenApplied_thenCompositeIndexesKeepColumnOrder() {
+        assertEquals(List.of("BOOKER_ID ASC", "START DESC", "ID DESC"), indexColumns("IDX_BOOKINGS_BOOKER_START_ID"));
+        assertEquals(List.of("ITEM_ID ASC", "STATUS ASC", "START ASC"), indexColumns("IDX_BOOKINGS_ITEM_STATUS_START"));
+        assertEquals(List.of("REQUESTOR_ID ASC", "CREATED DESC"), indexColumns("IDX_REQUESTS_REQUESTOR_CREATED"));
+    }
+
+    @Test
+    void migrate_whenApplied_thenIdsComeOnlyFromSequences() {
+        for (String table : List.of("USERS", "REQUESTS", "ITEMS", "BOOKINGS", "COMMENTS")) {
+            Map<String, Object> id = jdbcTemplate.queryForMap("select is_identity, column_default " +
+                    "from information_schema.columns where table_name = ? and column_name = 'ID'", table);
+            assertEquals("NO", id.get("IS_IDENTITY"), table);
+            assertThat(table, (String) id.get("COLUMN_DEFAULT"), containsStringIgnoringCase(table + "_SEQ"));
+        }
+    }
+
+    @Test
+    void explain_whenBookerBookingsPaged_thenBookerStartIdIndexUsed() {
+        assertThat(explain("select * from bookings where booker_id = 1 " +
+                        "and start < timestamp '2024-01-01 00:00:00' order by start desc"),
+                containsStringIgnoringCase("idx_bookings_booker_start_id"));
+    }
+
+    @Test
+    void explain_whenItemBookingsSearchedByStatus_thenItemStatusStartIndexUsed() {
+        assertThat(explain("select * from bookings where item_id in (1, 2) and status = 1 " +
+                        "and start > timestamp '2024-01-01 00:00:00'"),
+                containsStringIgnoringCase("idx_bookings_item_status_start"));
+    }
+
+    @Test
+    void explain_whenRequestsOfRequestorPaged_thenRequestorCreatedIndexUsed() {
+        assertThat(explain("select * from requests where requestor_id = 1 " +
+                        "and created < timestamp '2024-01-01 00:00:00' order by created desc"),
+                containsStringIgnoringCase("idx_requests_requestor_created"));
+    }
+
+    //план выполнения запроса в том виде, в котором его выбирает база
+    private String explain(String sql) {
+        return jdbcTemplate.queryForObject("explain " + sql, String.class);
+    }
+
+    private List<String> indexColumns(String index) {
+        return jdbcTemplate.queryForList("select column_name || ' ' || ordering_specification " +
+                "from information_schema.index_columns where index_name = ? order by ordinal_position", String.class, index);
+    }
+}
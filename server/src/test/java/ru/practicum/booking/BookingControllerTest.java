@@ -7,10 +7,15 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.booking.dto.BookingBulkCreateDto;
+import ru.practicum.booking.dto.BookingDecisionDto;
+import ru.practicum.booking.dto.BookingDecisionResultDto;
 import ru.practicum.booking.dto.BookingDto;
+import ru.practicum.booking.dto.BookingMapper;
 import ru.practicum.booking.model.Booking;
 import ru.practicum.item.dto.ItemDto;
 import ru.practicum.item.model.Item;
+import ru.practicum.pagination.CursorPage;
 import ru.practicum.user.dto.UserDto;
 import ru.practicum.user.model.User;
 
@@ -22,6 +27,7 @@ import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static ru.practicum.MatchingUtils.isLocalDateTime;
@@ -79,6 +85,48 @@ class BookingControllerTest {
                 .andExpect(jsonPath("$.status", is(bookingDto.getStatus().toString())));
     }
 
+    @Test
+    void createBookings() throws Exception {
+        Item ladder = new Item(1L, "стремянка", "высота 2 метра", true, owner, null, null, null, null);
+        Booking ladderBooking = new Booking(1L, current, current.plusDays(1), ladder, booker, BookingStatus.WAITING);
+        when(bookingService.createAll(eq(List.of(0L, 1L)), any(), any(), eq(bookerDto.getId())))
+                .thenReturn(List.of(booking, ladderBooking));
+
+        mvc.perform(post("/bookings/bulk")
+                        .content(mapper.writeValueAsString(new BookingBulkCreateDto(List.of(0L, 1L), current,
+                                current.plusDays(1))))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", bookerDto.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].item.id", is(0L), Long.class))
+                .andExpect(jsonPath("$[1].id", is(1L), Long.class))
+                .andExpect(jsonPath("$[1].item.id", is(1L), Long.class))
+                .andExpect(jsonPath("$[1].status", is("WAITING")));
+    }
+
+    @Test
+    void updateBookings() throws Exception {
+        List<BookingDecisionDto> decisions = List.of(new BookingDecisionDto(1L, true), new BookingDecisionDto(2L, false));
+        when(bookingService.updateAll(decisions, ownerDto.getId())).thenReturn(List.of(
+                new BookingDecisionResultDto(1L, BookingStatus.APPROVED, null),
+                new BookingDecisionResultDto(2L, BookingStatus.APPROVED, "Бронирование уже рассмотрено")));
+
+        mvc.perform(patch("/bookings/batch")
+                        .content(mapper.writeValueAsString(decisions))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", ownerDto.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", is(1L), Long.class))
+                .andExpect(jsonPath("$[0].status", is("APPROVED")))
+                .andExpect(jsonPath("$[0].error").doesNotExist())
+                .andExpect(jsonPath("$[1].id", is(2L), Long.class))
+                .andExpect(jsonPath("$[1].error", is("Бронирование уже рассмотрено")));
+    }
+
     @Test
     void updateBooking() throws Exception {
         when(bookingService.update(anyLong(), anyBoolean(), anyLong())).thenReturn(updateBooking);
@@ -128,9 +176,25 @@ class BookingControllerTest {
 
     }
 
+    @Test
+    void getAllBookingsForUser_whenCursorGiven_thenNextCursorInHeader() throws Exception {
+        List<BookingDto> bookings = BookingMapper.toBookingDtoList(List.of(booking), true);
+        when(bookingService.getAllBookings(anyLong(), any(), eq(""), eq(1)))
+                .thenReturn(new CursorPage<>(bookings, "next"));
+
+        mvc.perform(get("/bookings")
+                        .param("cursor", "")
+                        .param("size", "1")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", ownerDto.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(CursorPage.NEXT_CURSOR_HEADER, "next"))
+                .andExpect(jsonPath("$[0].id", is(bookingDto.getId()), Long.class));
+    }
+
     @Test
     void getAllBookingsForUser() throws Exception {
-        List<Booking> bookings = List.of(booking, bookingForList);
+        List<BookingDto> bookings = BookingMapper.toBookingDtoList(List.of(booking, bookingForList), true);
         when(bookingService.getAllBookings(anyLong(), any(), anyInt(), anyInt())).thenReturn(bookings);
 
         mvc.perform(get("/bookings")
@@ -155,7 +219,7 @@ class BookingControllerTest {
 
     @Test
     void getBookingsAllItemsForUser() throws Exception {
-        List<Booking> bookings = List.of(booking, bookingForList);
+        List<BookingDto> bookings = BookingMapper.toBookingDtoList(List.of(booking, bookingForList), true);
         when(bookingService.getBookingsAllItemsForUser(anyLong(), any(), anyInt(), anyInt())).thenReturn(bookings);
 
         mvc.perform(get("/bookings/owner")
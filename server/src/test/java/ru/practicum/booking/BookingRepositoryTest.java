@@ -1,24 +1,32 @@
 package ru.practicum.booking;
 
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import ru.practicum.booking.model.Booking;
 import ru.practicum.item.ItemRepository;
 import ru.practicum.item.model.Item;
 import ru.practicum.user.UserRepository;
 import ru.practicum.user.model.User;
 
+import javax.sql.DataSource;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
 class BookingRepositoryTest {
@@ -30,6 +38,8 @@ class BookingRepositoryTest {
     private UserRepository userRepository;
     @Autowired
     private ItemRepository itemRepository;
+    @Autowired
+    private DataSource dataSource;
 
     @Test
     void contextLoads() {
@@ -37,150 +47,131 @@ class BookingRepositoryTest {
     }
 
     @Test
-    void getBookingsAllItemsForUserWitchStatus() {
-        User booker = new User(null, "Иван Иванов", "ivai@ivanov.ru");
-        User owner = new User(null, "Петр Петров", "petr@petrov.ru");
-        booker = userRepository.save(booker);
-        owner = userRepository.save(owner);
-
-        Item item = new Item(null, "стремянка", "высота 2 метра",
-                true, owner, null, null, null, null);
-        item = itemRepository.save(item);
-
-        Sort sortByStartDesc = Sort.by(Sort.Direction.DESC, "start");
-        Pageable pageableDesc = PageRequest.of(0, 20, sortByStartDesc);
-
-        Booking booking = new Booking(null, LocalDateTime.now().plusDays(4), LocalDateTime.now().plusDays(5),
-                item, booker, BookingStatus.WAITING);
-        booking = bookingRepository.save(booking);
-
-        List<Booking> expectedBookings = List.of(booking);
-        Page<Booking> actualBookings = bookingRepository.getBookingsAllItemsForUserWithStatus(owner,
-                BookingStatus.WAITING, pageableDesc);
-        assertEquals(expectedBookings, actualBookings.getContent());
+    void findLastAndNextByItemIds() {
+        User booker = userRepository.save(new User(null, "Иван Иванов", "ivai@ivanov.ru"));
+        User owner = userRepository.save(new User(null, "Петр Петров", "petr@petrov.ru"));
+        Item firstItem = itemRepository.save(new Item(null, "дрель", "питание от сети",
+                true, owner, null, null, null, null));
+        Item secondItem = itemRepository.save(new Item(null, "стремянка", "высота 2 метра",
+                true, owner, null, null, null, null));
+        LocalDateTime now = now();
+
+        bookingRepository.save(new Booking(null, now.minusDays(20), now.minusDays(19),
+                firstItem, booker, BookingStatus.APPROVED));
+        Booking firstLast = bookingRepository.save(new Booking(null, now.minusDays(5), now.minusDays(4),
+                firstItem, booker, BookingStatus.APPROVED));
+        bookingRepository.save(new Booking(null, now.minusDays(3), now.minusDays(2),
+                firstItem, booker, BookingStatus.REJECTED));
+        Booking firstNext = bookingRepository.save(new Booking(null, now.plusDays(1), now.plusDays(2),
+                firstItem, booker, BookingStatus.APPROVED));
+        bookingRepository.save(new Booking(null, now.plusDays(10), now.plusDays(11),
+                firstItem, booker, BookingStatus.APPROVED));
+        Booking secondLast = bookingRepository.save(new Booking(null, now.minusDays(1), now.plusDays(1),
+                secondItem, booker, BookingStatus.APPROVED));
+
+        List<Long> itemIds = List.of(firstItem.getId(), secondItem.getId());
+        BookingStatus approved = BookingStatus.APPROVED;
+
+        List<Booking> lastBookings = bookingRepository.findLastByItemIds(itemIds, now, approved);
+        lastBookings.sort(Comparator.comparing(Booking::getId));
+        assertEquals(List.of(firstLast, secondLast), lastBookings);
+        assertEquals(List.of(firstNext), bookingRepository.findNextByItemIds(itemIds, now, approved));
+        assertEquals(List.of(), bookingRepository.findNextByItemIds(List.of(secondItem.getId()), now, approved));
     }
 
     @Test
-    void getBookingsAllItemsForUser() {
-        User booker = new User(null, "Иван Иванов", "ivai@ivanov.ru");
-        User owner = new User(null, "Петр Петров", "petr@petrov.ru");
-        booker = userRepository.save(booker);
-        owner = userRepository.save(owner);
-        Item festIem = new Item(null, "дрель", "питание от сети",
-                true, owner, null, null, null, null);
-        Item secondItem = new Item(null, "стремянка", "высота 2 метра",
-                true, owner, null, null, null, null);
-        festIem = itemRepository.save(festIem);
-        secondItem = itemRepository.save(secondItem);
-
-        Sort sortByStartDesc = Sort.by(Sort.Direction.DESC, "start");
-        Pageable pageableDesc = PageRequest.of(0, 20, sortByStartDesc);
-
-        Booking festBooking = new Booking(null, LocalDateTime.now(), LocalDateTime.now().plusDays(2),
-                festIem, booker, BookingStatus.APPROVED);
-        Booking secondBooking = new Booking(null, LocalDateTime.now().plusDays(2), LocalDateTime.now().plusDays(3),
-                secondItem, booker, BookingStatus.APPROVED);
-        Booking therdBooking = new Booking(null, LocalDateTime.now().plusDays(4), LocalDateTime.now().plusDays(5),
-                secondItem, booker, BookingStatus.WAITING);
-        festBooking = bookingRepository.save(festBooking);
-        secondBooking = bookingRepository.save(secondBooking);
-        therdBooking = bookingRepository.save(therdBooking);
-
-        List<Booking> expectedBookings = List.of(therdBooking, secondBooking, festBooking);
-        Page<Booking> actualBookings = bookingRepository.getBookingsAllItemsForUser(owner, pageableDesc);
-        assertEquals(expectedBookings, actualBookings.getContent());
+    void findLastAndNextByItemIds_whenTiesAndContextCleared_thenOneBookingWithBookerPerItem() {
+        User booker = userRepository.save(new User(null, "Иван Иванов", "ivai@ivanov.ru"));
+        User owner = userRepository.save(new User(null, "Петр Петров", "petr@petrov.ru"));
+        Item item = itemRepository.save(new Item(null, "дрель", "питание от сети",
+                true, owner, null, null, null, null));
+        LocalDateTime now = now();
+        Booking last = bookingRepository.save(new Booking(null, now.minusDays(3), now.minusDays(1),
+                item, booker, BookingStatus.APPROVED));
+        bookingRepository.save(new Booking(null, now.minusDays(2), now.minusDays(1),
+                item, booker, BookingStatus.APPROVED));
+        Booking next = bookingRepository.save(new Booking(null, now.plusDays(1), now.plusDays(2),
+                item, booker, BookingStatus.APPROVED));
+        bookingRepository.save(new Booking(null, now.plusDays(1), now.plusDays(3),
+                item, booker, BookingStatus.APPROVED));
+        em.flush();
+        em.clear();
+
+        //при равных датах побеждает меньший id; арендатор приходит вместе с бронированием, без ленивой загрузки
+        List<Booking> lastBookings = bookingRepository.findLastByItemIds(List.of(item.getId()), now,
+                BookingStatus.APPROVED);
+        List<Booking> nextBookings = bookingRepository.findNextByItemIds(List.of(item.getId()), now,
+                BookingStatus.APPROVED);
+
+        assertEquals(List.of(last.getId()), lastBookings.stream().map(Booking::getId).collect(Collectors.toList()));
+        assertEquals(List.of(next.getId()), nextBookings.stream().map(Booking::getId).collect(Collectors.toList()));
+        assertTrue(Hibernate.isInitialized(lastBookings.get(0).getBooker()));
+        assertTrue(Hibernate.isInitialized(nextBookings.get(0).getBooker()));
     }
 
     @Test
-    void findCompletedBookings() {
-        User booker = new User(null, "Иван Иванов", "ivai@ivanov.ru");
-        User owner = new User(null, "Петр Петров", "petr@petrov.ru");
-        booker = userRepository.save(booker);
-        owner = userRepository.save(owner);
-        Item firstIem = new Item(null, "дрель", "питание от сети",
-                true, owner, null, null, null, null);
-        Item secondItem = new Item(null, "стремянка", "высота 2 метра",
-                true, owner, null, null, null, null);
-        firstIem = itemRepository.save(firstIem);
-        secondItem = itemRepository.save(secondItem);
-
-        Sort sortByStartDesc = Sort.by(Sort.Direction.DESC, "start");
-        Pageable pageableDesc = PageRequest.of(0, 20, sortByStartDesc);
-        LocalDateTime created = LocalDateTime.now();
-
-        Booking festBooking = new Booking(null, created.minusDays(7), created.minusDays(5),
-                firstIem, booker, BookingStatus.APPROVED);
-        Booking secondBooking = new Booking(null, created.minusDays(3), created.minusDays(1),
-                secondItem, booker, BookingStatus.APPROVED);
-        festBooking = bookingRepository.save(festBooking);
-        secondBooking = bookingRepository.save(secondBooking);
-
-        List<Booking> expectedBookings = List.of(secondBooking, festBooking);
-        Page<Booking> actualBookings = bookingRepository.findCompletedBookings(owner, created, pageableDesc);
-        assertEquals(expectedBookings, actualBookings.getContent());
+    void lastAndNextIdsQueries_whenLongHistory_thenEachBookingScannedOnce() {
+        User booker = userRepository.save(new User(null, "Иван Иванов", "ivai@ivanov.ru"));
+        User owner = userRepository.save(new User(null, "Петр Петров", "petr@petrov.ru"));
+        Item item = itemRepository.save(new Item(null, "дрель", "питание от сети",
+                true, owner, null, null, null, null));
+        LocalDateTime now = now();
+        int history = 200;
+        for (int i = 1; i <= history; i++) {
+            em.persist(new Booking(null, now.minusDays(2L * i), now.minusDays(2L * i - 1),
+                    item, booker, BookingStatus.APPROVED));
+            em.persist(new Booking(null, now.plusDays(2L * i), now.plusDays(2L * i + 1),
+                    item, booker, BookingStatus.APPROVED));
+        }
+        em.flush();
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("itemIds", List.of(item.getId()))
+                .addValue("now", now)
+                .addValue("status", BookingStatus.APPROVED.ordinal());
+
+        //сравнение каждой строки со всеми остальными строками вещи дало бы порядка history * history чтений
+        for (String sql : List.of(BookingRepository.LAST_IDS_BY_ITEM_IDS, BookingRepository.NEXT_IDS_BY_ITEM_IDS)) {
+            String plan = explain(sql, params);
+            assertTrue(plan.contains("IDX_BOOKINGS_ITEM_STATUS_START"), plan);
+            assertEquals(history + 1, scanned(plan), plan);
+        }
     }
 
     @Test
-    void findFutureBookings() {
-        User booker = new User(null, "Иван Иванов", "ivai@ivanov.ru");
-        User owner = new User(null, "Петр Петров", "petr@petrov.ru");
-        booker = userRepository.save(booker);
-        owner = userRepository.save(owner);
-        Item firstIem = new Item(null, "дрель", "питание от сети",
-                true, owner, null, null, null, null);
-        Item secondItem = new Item(null, "стремянка", "высота 2 метра",
-                true, owner, null, null, null, null);
-        firstIem = itemRepository.save(firstIem);
-        secondItem = itemRepository.save(secondItem);
-
-        Sort sortByStartAsc = Sort.by(Sort.Direction.ASC, "start");
-        Pageable pageableAsc = PageRequest.of(0, 20, sortByStartAsc);
-        LocalDateTime created = LocalDateTime.now();
-
-        Booking festBooking = new Booking(null, created.plusDays(7), created.plusDays(5),
-                firstIem, booker, BookingStatus.APPROVED);
-        Booking secondBooking = new Booking(null, created.plusDays(3), created.plusDays(1),
-                secondItem, booker, BookingStatus.WAITING);
-        festBooking = bookingRepository.save(festBooking);
-        secondBooking = bookingRepository.save(secondBooking);
-
-        List<Booking> expectedBookings = List.of(secondBooking, festBooking);
-        Page<Booking> actualBookings = bookingRepository.findFutureBookings(owner, created, pageableAsc);
-        assertEquals(expectedBookings, actualBookings.getContent());
+    void saveAndFlush_whenBookingChangedConcurrently_thenOptimisticLockingFailure() {
+        User booker = userRepository.save(new User(null, "Иван Иванов", "ivai@ivanov.ru"));
+        User owner = userRepository.save(new User(null, "Петр Петров", "petr@petrov.ru"));
+        Item item = itemRepository.save(new Item(null, "стремянка", "высота 2 метра",
+                true, owner, null, null, null, null));
+        Booking booking = bookingRepository.saveAndFlush(new Booking(null, now().plusDays(1), now().plusDays(2),
+                item, booker, BookingStatus.WAITING));
+        assertEquals(0L, booking.getVersion());
+
+        //параллельная транзакция успела отклонить бронирование
+        em.getEntityManager().createNativeQuery("update bookings set status = 2, version = version + 1 where id = ?")
+                .setParameter(1, booking.getId())
+                .executeUpdate();
+        booking.setStatus(BookingStatus.APPROVED);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> bookingRepository.saveAndFlush(booking));
     }
 
-    @Test
-    void findCurrentBookings() {
-        User booker = new User(null, "Иван Иванов", "ivai@ivanov.ru");
-        User owner = new User(null, "Петр Петров", "petr@petrov.ru");
-        booker = userRepository.save(booker);
-        owner = userRepository.save(owner);
-        Item firstIem = new Item(null, "дрель", "питание от сети",
-                true, owner, null, null, null, null);
-        Item secondItem = new Item(null, "стремянка", "высота 2 метра",
-                true, owner, null, null, null, null);
-        Item thirdItem = new Item(null, "шуруповерт", "работает от аккумулятора",
-                true, owner, null, null, null, null);
-        firstIem = itemRepository.save(firstIem);
-        secondItem = itemRepository.save(secondItem);
-        thirdItem = itemRepository.save(thirdItem);
-
-        Sort sortByStartDesc = Sort.by(Sort.Direction.DESC, "start");
-        Pageable pageableDesc = PageRequest.of(0, 20, sortByStartDesc);
-        LocalDateTime created = LocalDateTime.now();
-
-        Booking festBooking = new Booking(null, created.minusDays(7), created.plusHours(12),
-                firstIem, booker, BookingStatus.APPROVED);
-        Booking secondBooking = new Booking(null, created.minusDays(3), created.plusDays(1),
-                secondItem, booker, BookingStatus.APPROVED);
-        Booking thirdBooking = new Booking(null, created.minusHours(3), created.plusDays(5),
-                thirdItem, booker, BookingStatus.WAITING);
-        festBooking = bookingRepository.save(festBooking);
-        secondBooking = bookingRepository.save(secondBooking);
-        thirdBooking = bookingRepository.save(thirdBooking);
-
-        List<Booking> expectedBookings = List.of(thirdBooking, secondBooking, festBooking);
-        Page<Booking> actualBookings = bookingRepository.findCurrentBookings(owner, created, created, pageableDesc);
-        assertEquals(expectedBookings, actualBookings.getContent());
+    //база хранит время с точностью до микросекунд, проекции возвращают именно его
+    private static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    //H2 пишет scanCount для каждой таблицы и подзапроса плана, больше всех читает выборка из bookings
+    private int scanned(String plan) {
+        Matcher matcher = Pattern.compile("scanCount: (\\d+)").matcher(plan);
+        int rows = 0;
+        while (matcher.find()) {
+            rows = Math.max(rows, Integer.parseInt(matcher.group(1)));
+        }
+        return rows;
+    }
+
+    private String explain(String sql, MapSqlParameterSource params) {
+        return new NamedParameterJdbcTemplate(dataSource).queryForObject("explain analyze " + sql, params, String.class);
     }
 }
@@ -1,22 +1,41 @@
 package ru.practicum.booking;
 
 import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.booking.dto.BookingDecisionDto;
+import ru.practicum.booking.dto.BookingDecisionResultDto;
+import ru.practicum.booking.dto.BookingDto;
+import ru.practicum.booking.dto.BookingMapper;
 import ru.practicum.booking.model.Booking;
+import ru.practicum.exception.BookingConflictException;
+import ru.practicum.exception.BookingValidationException;
+import ru.practicum.exception.CursorValidationException;
+import ru.practicum.exception.ItemNotFoundException;
 import ru.practicum.exception.UserNotFoundException;
 import ru.practicum.item.ItemRepository;
 import ru.practicum.item.model.Item;
+import ru.practicum.pagination.Cursor;
+import ru.practicum.pagination.CursorPage;
 import ru.practicum.user.UserRepository;
 import ru.practicum.user.model.User;
 
+import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @Transactional
@@ -32,6 +51,101 @@ class BookingServiceImplIntegrationTest {
     private ItemRepository itemRepository;
     @Autowired
     private BookingServiceImpl bookingService;
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void getBookings_whenListed_thenDtosFilledWithoutLoadingEntities() {
+        User booker = userRepository.save(new User(null, "Иван Иванов", "ivai@ivanov.ru"));
+        User owner = userRepository.save(new User(null, "Петр Петров", "petr@petrov.ru"));
+        Item firstItem = itemRepository.save(new Item(null, "дрель", "питание от сети",
+                true, owner, null, null, null, null));
+        Item secondItem = itemRepository.save(new Item(null, "стремянка", "высота 2 метра",
+                true, owner, null, null, null, null));
+        bookingRepository.save(new Booking(null, now().minusDays(3), now().minusDays(2),
+                firstItem, booker, BookingStatus.APPROVED));
+        bookingRepository.save(new Booking(null, now().plusDays(4), now().plusDays(5),
+                secondItem, booker, BookingStatus.WAITING));
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+        for (BookingStatusForFilter state : BookingStatusForFilter.values()) {
+            userRepository.findById(booker.getId());
+            userRepository.findById(owner.getId());
+            statistics.clear();
+
+            List<BookingDto> byBooker = bookingService.getAllBookings(booker.getId(), state, 0, 10);
+            List<BookingDto> byOwner = bookingService.getBookingsAllItemsForUser(owner.getId(), state, 0, 10);
+
+            assertEquals(0, statistics.getEntityLoadCount(), state.name());
+            for (BookingDto booking : byBooker) {
+                assertEquals(booker.getName(), booking.getBooker().getName());
+                assertEquals(owner.getId(), booking.getItem().getOwner());
+            }
+            assertEquals(byBooker, byOwner, state.name());
+        }
+    }
+
+    @Test
+    void getAllBookings_whenPagedByCursor_thenPagesFollowOffsetOrderWithoutCount() {
+        User booker = userRepository.save(new User(null, "Иван Иванов", "ivai@ivanov.ru"));
+        User owner = userRepository.save(new User(null, "Петр Петров", "petr@petrov.ru"));
+        Item item = itemRepository.save(new Item(null, "дрель", "питание от сети",
+                true, owner, null, null, null, null));
+        LocalDateTime start = now().plusDays(1);
+        Booking first = bookingRepository.save(new Booking(null, start, start.plusDays(1),
+                item, booker, BookingStatus.WAITING));
+        Booking second = bookingRepository.save(new Booking(null, start, start.plusDays(2),
+                item, booker, BookingStatus.WAITING));
+        Booking third = bookingRepository.save(new Booking(null, start.minusHours(1), start.plusDays(2),
+                item, booker, BookingStatus.WAITING));
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        CursorPage<BookingDto> firstPage = bookingService.getAllBookings(booker.getId(), BookingStatusForFilter.ALL, "", 2);
+        CursorPage<BookingDto> secondPage = bookingService.getAllBookings(booker.getId(), BookingStatusForFilter.ALL,
+                firstPage.getNext(), 2);
+
+        //одинаковые даты начала упорядочиваются по id, на каждую страницу один запрос без count(*)
+        assertEquals(List.of(second.getId(), first.getId()), firstPage.getContent().stream()
+                .map(BookingDto::getId).collect(Collectors.toList()));
+        assertEquals(List.of(third.getId()), secondPage.getContent().stream()
+                .map(BookingDto::getId).collect(Collectors.toList()));
+        assertNull(secondPage.getNext());
+        assertEquals(2, statistics.getQueryExecutionCount());
+    }
+
+    @Test
+    void getBookingsAllItemsForUser_whenCurrentPagedByCursor_thenAscendingPages() {
+        User booker = userRepository.save(new User(null, "Иван Иванов", "ivai@ivanov.ru"));
+        User owner = userRepository.save(new User(null, "Петр Петров", "petr@petrov.ru"));
+        Item item = itemRepository.save(new Item(null, "дрель", "питание от сети",
+                true, owner, null, null, null, null));
+        Booking first = bookingRepository.save(new Booking(null, now().minusDays(2), now().plusDays(1),
+                item, booker, BookingStatus.APPROVED));
+        Booking second = bookingRepository.save(new Booking(null, now().minusDays(1), now().plusDays(1),
+                item, booker, BookingStatus.APPROVED));
+
+        CursorPage<BookingDto> firstPage = bookingService.getBookingsAllItemsForUser(owner.getId(),
+                BookingStatusForFilter.CURRENT, "", 1);
+        CursorPage<BookingDto> secondPage = bookingService.getBookingsAllItemsForUser(owner.getId(),
+                BookingStatusForFilter.CURRENT, firstPage.getNext(), 1);
+
+        assertEquals(first.getId(), firstPage.getContent().get(0).getId());
+        assertEquals(second.getId(), secondPage.getContent().get(0).getId());
+        assertNull(secondPage.getNext());
+    }
+
+    @Test
+    void getAllBookings_whenCursorIsBroken_thenCursorValidationException() {
+        User booker = userRepository.save(new User(null, "Иван Иванов", "ivai@ivanov.ru"));
+
+        assertThrows(CursorValidationException.class, () -> bookingService.getAllBookings(booker.getId(),
+                BookingStatusForFilter.ALL, "не курсор", 10));
+        assertThrows(CursorValidationException.class, () -> bookingService.getAllBookings(booker.getId(),
+                BookingStatusForFilter.ALL, Cursor.encode(1L), 10));
+    }
 
     @Test
     void getAllBookings_whenBookingStatusIsAll_thenBookingsReturn() {
@@ -46,18 +160,18 @@ class BookingServiceImplIntegrationTest {
         festIem = itemRepository.save(festIem);
         secondItem = itemRepository.save(secondItem);
 
-        Booking festBooking = new Booking(null, LocalDateTime.now().minusDays(3), LocalDateTime.now().minusDays(2),
+        Booking festBooking = new Booking(null, now().minusDays(3), now().minusDays(2),
                 festIem, booker, BookingStatus.APPROVED);
-        Booking secondBooking = new Booking(null, LocalDateTime.now(), LocalDateTime.now().plusDays(3),
+        Booking secondBooking = new Booking(null, now(), now().plusDays(3),
                 secondItem, booker, BookingStatus.APPROVED);
-        Booking therdBooking = new Booking(null, LocalDateTime.now().plusDays(4), LocalDateTime.now().plusDays(5),
+        Booking therdBooking = new Booking(null, now().plusDays(4), now().plusDays(5),
                 secondItem, booker, BookingStatus.WAITING);
         festBooking = bookingRepository.save(festBooking);
         secondBooking = bookingRepository.save(secondBooking);
         therdBooking = bookingRepository.save(therdBooking);
 
-        List<Booking> expectedBookings = List.of(therdBooking, secondBooking, festBooking);
-        List<Booking> actualBookings = bookingService.getAllBookings(booker.getId(),
+        List<BookingDto> expectedBookings = BookingMapper.toBookingDtoList(List.of(therdBooking, secondBooking, festBooking), true);
+        List<BookingDto> actualBookings = bookingService.getAllBookings(booker.getId(),
                 BookingStatusForFilter.ALL, 0, 10);
         assertEquals(expectedBookings, actualBookings);
     }
@@ -75,18 +189,18 @@ class BookingServiceImplIntegrationTest {
         festIem = itemRepository.save(festIem);
         secondItem = itemRepository.save(secondItem);
 
-        Booking festBooking = new Booking(null, LocalDateTime.now().plusHours(3), LocalDateTime.now().plusDays(2),
+        Booking festBooking = new Booking(null, now().plusHours(3), now().plusDays(2),
                 festIem, booker, BookingStatus.APPROVED);
-        Booking secondBooking = new Booking(null, LocalDateTime.now().plusDays(2), LocalDateTime.now().plusDays(3),
+        Booking secondBooking = new Booking(null, now().plusDays(2), now().plusDays(3),
                 secondItem, booker, BookingStatus.APPROVED);
-        Booking therdBooking = new Booking(null, LocalDateTime.now().plusDays(4), LocalDateTime.now().plusDays(5),
+        Booking therdBooking = new Booking(null, now().plusDays(4), now().plusDays(5),
                 secondItem, booker, BookingStatus.WAITING);
         festBooking = bookingRepository.save(festBooking);
         secondBooking = bookingRepository.save(secondBooking);
         therdBooking = bookingRepository.save(therdBooking);
 
-        List<Booking> expectedBookings = List.of(therdBooking, secondBooking, festBooking);
-        List<Booking> actualBookings = bookingService.getAllBookings(booker.getId(),
+        List<BookingDto> expectedBookings = BookingMapper.toBookingDtoList(List.of(therdBooking, secondBooking, festBooking), true);
+        List<BookingDto> actualBookings = bookingService.getAllBookings(booker.getId(),
                 BookingStatusForFilter.FUTURE, 0, 10);
         assertEquals(expectedBookings, actualBookings);
     }
@@ -104,18 +218,18 @@ class BookingServiceImplIntegrationTest {
         festIem = itemRepository.save(festIem);
         secondItem = itemRepository.save(secondItem);
 
-        Booking festBooking = new Booking(null, LocalDateTime.now().minusMonths(3), LocalDateTime.now().minusMonths(2),
+        Booking festBooking = new Booking(null, now().minusMonths(3), now().minusMonths(2),
                 festIem, booker, BookingStatus.APPROVED);
-        Booking secondBooking = new Booking(null, LocalDateTime.now().minusWeeks(2), LocalDateTime.now().minusWeeks(1),
+        Booking secondBooking = new Booking(null, now().minusWeeks(2), now().minusWeeks(1),
                 secondItem, booker, BookingStatus.APPROVED);
-        Booking therdBooking = new Booking(null, LocalDateTime.now().minusDays(5), LocalDateTime.now().minusDays(3),
+        Booking therdBooking = new Booking(null, now().minusDays(5), now().minusDays(3),
                 secondItem, booker, BookingStatus.WAITING);
         festBooking = bookingRepository.save(festBooking);
         secondBooking = bookingRepository.save(secondBooking);
         therdBooking = bookingRepository.save(therdBooking);
 
-        List<Booking> expectedBookings = List.of(therdBooking, secondBooking, festBooking);
-        List<Booking> actualBookings = bookingService.getAllBookings(booker.getId(),
+        List<BookingDto> expectedBookings = BookingMapper.toBookingDtoList(List.of(therdBooking, secondBooking, festBooking), true);
+        List<BookingDto> actualBookings = bookingService.getAllBookings(booker.getId(),
                 BookingStatusForFilter.PAST, 0, 10);
         assertEquals(expectedBookings, actualBookings);
     }
@@ -133,18 +247,18 @@ class BookingServiceImplIntegrationTest {
         festIem = itemRepository.save(festIem);
         secondItem = itemRepository.save(secondItem);
 
-        Booking festBooking = new Booking(null, LocalDateTime.now().minusWeeks(1), LocalDateTime.now().plusDays(3),
+        Booking festBooking = new Booking(null, now().minusWeeks(1), now().plusDays(3),
                 festIem, booker, BookingStatus.APPROVED);
-        Booking secondBooking = new Booking(null, LocalDateTime.now().minusDays(2), LocalDateTime.now().plusDays(2),
+        Booking secondBooking = new Booking(null, now().minusDays(2), now().plusDays(2),
                 secondItem, booker, BookingStatus.APPROVED);
-        Booking therdBooking = new Booking(null, LocalDateTime.now().minusHours(1), LocalDateTime.now().plusDays(3),
+        Booking therdBooking = new Booking(null, now().minusHours(1), now().plusDays(3),
                 secondItem, booker, BookingStatus.WAITING);
         festBooking = bookingRepository.save(festBooking);
         secondBooking = bookingRepository.save(secondBooking);
         therdBooking = bookingRepository.save(therdBooking);
 
-        List<Booking> expectedBookings = List.of(therdBooking, secondBooking, festBooking);
-        List<Booking> actualBookings = bookingService.getAllBookings(booker.getId(),
+        List<BookingDto> expectedBookings = BookingMapper.toBookingDtoList(List.of(therdBooking, secondBooking, festBooking), true);
+        List<BookingDto> actualBookings = bookingService.getAllBookings(booker.getId(),
                 BookingStatusForFilter.CURRENT, 0, 10);
         assertEquals(expectedBookings, actualBookings);
     }
@@ -162,18 +276,18 @@ class BookingServiceImplIntegrationTest {
         festIem = itemRepository.save(festIem);
         secondItem = itemRepository.save(secondItem);
 
-        Booking festBooking = new Booking(null, LocalDateTime.now().minusWeeks(2), LocalDateTime.now().minusWeeks(1),
+        Booking festBooking = new Booking(null, now().minusWeeks(2), now().minusWeeks(1),
                 festIem, booker, BookingStatus.WAITING);
-        Booking secondBooking = new Booking(null, LocalDateTime.now().minusDays(2), LocalDateTime.now().plusDays(2),
+        Booking secondBooking = new Booking(null, now().minusDays(2), now().plusDays(2),
                 secondItem, booker, BookingStatus.WAITING);
-        Booking therdBooking = new Booking(null, LocalDateTime.now().minusHours(1), LocalDateTime.now().plusDays(3),
+        Booking therdBooking = new Booking(null, now().minusHours(1), now().plusDays(3),
                 secondItem, booker, BookingStatus.WAITING);
         festBooking = bookingRepository.save(festBooking);
         secondBooking = bookingRepository.save(secondBooking);
         therdBooking = bookingRepository.save(therdBooking);
 
-        List<Booking> expectedBookings = List.of(therdBooking, secondBooking, festBooking);
-        List<Booking> actualBookings = bookingService.getAllBookings(booker.getId(),
+        List<BookingDto> expectedBookings = BookingMapper.toBookingDtoList(List.of(therdBooking, secondBooking, festBooking), true);
+        List<BookingDto> actualBookings = bookingService.getAllBookings(booker.getId(),
                 BookingStatusForFilter.WAITING, 0, 10);
         assertEquals(expectedBookings, actualBookings);
     }
@@ -191,18 +305,18 @@ class BookingServiceImplIntegrationTest {
         festIem = itemRepository.save(festIem);
         secondItem = itemRepository.save(secondItem);
 
-        Booking festBooking = new Booking(null, LocalDateTime.now().minusWeeks(2), LocalDateTime.now().minusWeeks(1),
+        Booking festBooking = new Booking(null, now().minusWeeks(2), now().minusWeeks(1),
                 festIem, booker, BookingStatus.REJECTED);
-        Booking secondBooking = new Booking(null, LocalDateTime.now().minusDays(2), LocalDateTime.now().plusDays(2),
+        Booking secondBooking = new Booking(null, now().minusDays(2), now().plusDays(2),
                 secondItem, booker, BookingStatus.REJECTED);
-        Booking therdBooking = new Booking(null, LocalDateTime.now().minusHours(1), LocalDateTime.now().plusDays(3),
+        Booking therdBooking = new Booking(null, now().minusHours(1), now().plusDays(3),
                 secondItem, booker, BookingStatus.REJECTED);
         festBooking = bookingRepository.save(festBooking);
         secondBooking = bookingRepository.save(secondBooking);
         therdBooking = bookingRepository.save(therdBooking);
 
-        List<Booking> expectedBookings = List.of(therdBooking, secondBooking, festBooking);
-        List<Booking> actualBookings = bookingService.getAllBookings(booker.getId(),
+        List<BookingDto> expectedBookings = BookingMapper.toBookingDtoList(List.of(therdBooking, secondBooking, festBooking), true);
+        List<BookingDto> actualBookings = bookingService.getAllBookings(booker.getId(),
                 BookingStatusForFilter.REJECTED, 0, 10);
         assertEquals(expectedBookings, actualBookings);
     }
@@ -229,18 +343,18 @@ class BookingServiceImplIntegrationTest {
         festIem = itemRepository.save(festIem);
         secondItem = itemRepository.save(secondItem);
 
-        Booking festBooking = new Booking(null, LocalDateTime.now(), LocalDateTime.now().plusDays(2),
+        Booking festBooking = new Booking(null, now(), now().plusDays(2),
                 festIem, booker, BookingStatus.APPROVED);
-        Booking secondBooking = new Booking(null, LocalDateTime.now().plusDays(2), LocalDateTime.now().plusDays(3),
+        Booking secondBooking = new Booking(null, now().plusDays(2), now().plusDays(3),
                 secondItem, booker, BookingStatus.APPROVED);
-        Booking therdBooking = new Booking(null, LocalDateTime.now().plusDays(4), LocalDateTime.now().plusDays(5),
+        Booking therdBooking = new Booking(null, now().plusDays(4), now().plusDays(5),
                 secondItem, booker, BookingStatus.WAITING);
         festBooking = bookingRepository.save(festBooking);
         secondBooking = bookingRepository.save(secondBooking);
         therdBooking = bookingRepository.save(therdBooking);
 
-        List<Booking> expectedBookings = List.of(therdBooking, secondBooking, festBooking);
-        List<Booking> actualBookings = bookingService.getBookingsAllItemsForUser(owner.getId(),
+        List<BookingDto> expectedBookings = BookingMapper.toBookingDtoList(List.of(therdBooking, secondBooking, festBooking), true);
+        List<BookingDto> actualBookings = bookingService.getBookingsAllItemsForUser(owner.getId(),
                 BookingStatusForFilter.ALL, 0, 10);
         assertEquals(expectedBookings, actualBookings);
     }
@@ -258,18 +372,18 @@ class BookingServiceImplIntegrationTest {
         festIem = itemRepository.save(festIem);
         secondItem = itemRepository.save(secondItem);
 
-        Booking festBooking = new Booking(null, LocalDateTime.now().plusHours(3), LocalDateTime.now().plusDays(2),
+        Booking festBooking = new Booking(null, now().plusHours(3), now().plusDays(2),
                 festIem, booker, BookingStatus.APPROVED);
-        Booking secondBooking = new Booking(null, LocalDateTime.now().plusDays(2), LocalDateTime.now().plusDays(3),
+        Booking secondBooking = new Booking(null, now().plusDays(2), now().plusDays(3),
                 secondItem, booker, BookingStatus.APPROVED);
-        Booking therdBooking = new Booking(null, LocalDateTime.now().plusDays(4), LocalDateTime.now().plusDays(5),
+        Booking therdBooking = new Booking(null, now().plusDays(4), now().plusDays(5),
                 secondItem, booker, BookingStatus.WAITING);
         festBooking = bookingRepository.save(festBooking);
         secondBooking = bookingRepository.save(secondBooking);
         therdBooking = bookingRepository.save(therdBooking);
 
-        List<Booking> expectedBookings = List.of(therdBooking, secondBooking, festBooking);
-        List<Booking> actualBookings = bookingService.getBookingsAllItemsForUser(owner.getId(),
+        List<BookingDto> expectedBookings = BookingMapper.toBookingDtoList(List.of(therdBooking, secondBooking, festBooking), true);
+        List<BookingDto> actualBookings = bookingService.getBookingsAllItemsForUser(owner.getId(),
                 BookingStatusForFilter.FUTURE, 0, 10);
         assertEquals(expectedBookings, actualBookings);
     }
@@ -287,18 +401,18 @@ class BookingServiceImplIntegrationTest {
         festIem = itemRepository.save(festIem);
         secondItem = itemRepository.save(secondItem);
 
-        Booking festBooking = new Booking(null, LocalDateTime.now().minusMonths(3), LocalDateTime.now().minusMonths(2),
+        Booking festBooking = new Booking(null, now().minusMonths(3), now().minusMonths(2),
                 festIem, booker, BookingStatus.APPROVED);
-        Booking secondBooking = new Booking(null, LocalDateTime.now().minusWeeks(2), LocalDateTime.now().minusWeeks(1),
+        Booking secondBooking = new Booking(null, now().minusWeeks(2), now().minusWeeks(1),
                 secondItem, booker, BookingStatus.APPROVED);
-        Booking therdBooking = new Booking(null, LocalDateTime.now().minusDays(5), LocalDateTime.now().minusDays(3),
+        Booking therdBooking = new Booking(null, now().minusDays(5), now().minusDays(3),
                 secondItem, booker, BookingStatus.WAITING);
         festBooking = bookingRepository.save(festBooking);
         secondBooking = bookingRepository.save(secondBooking);
         therdBooking = bookingRepository.save(therdBooking);
 
-        List<Booking> expectedBookings = List.of(therdBooking, secondBooking, festBooking);
-        List<Booking> actualBookings = bookingService.getBookingsAllItemsForUser(owner.getId(),
+        List<BookingDto> expectedBookings = BookingMapper.toBookingDtoList(List.of(therdBooking, secondBooking, festBooking), true);
+        List<BookingDto> actualBookings = bookingService.getBookingsAllItemsForUser(owner.getId(),
                 BookingStatusForFilter.PAST, 0, 10);
         assertEquals(expectedBookings, actualBookings);
     }
@@ -316,18 +430,18 @@ class BookingServiceImplIntegrationTest {
         festIem = itemRepository.save(festIem);
         secondItem = itemRepository.save(secondItem);
 
-        Booking festBooking = new Booking(null, LocalDateTime.now().minusWeeks(1), LocalDateTime.now().plusDays(3),
+        Booking festBooking = new Booking(null, now().minusWeeks(1), now().plusDays(3),
                 festIem, booker, BookingStatus.APPROVED);
-        Booking secondBooking = new Booking(null, LocalDateTime.now().minusDays(2), LocalDateTime.now().plusDays(2),
+        Booking secondBooking = new Booking(null, now().minusDays(2), now().plusDays(2),
                 secondItem, booker, BookingStatus.APPROVED);
-        Booking therdBooking = new Booking(null, LocalDateTime.now().minusHours(1), LocalDateTime.now().plusDays(3),
+        Booking therdBooking = new Booking(null, now().minusHours(1), now().plusDays(3),
                 secondItem, booker, BookingStatus.WAITING);
         festBooking = bookingRepository.save(festBooking);
         secondBooking = bookingRepository.save(secondBooking);
         therdBooking = bookingRepository.save(therdBooking);
 
-        List<Booking> expectedBookings = List.of(festBooking, secondBooking, therdBooking);
-        List<Booking> actualBookings = bookingService.getBookingsAllItemsForUser(owner.getId(),
+        List<BookingDto> expectedBookings = BookingMapper.toBookingDtoList(List.of(festBooking, secondBooking, therdBooking), true);
+        List<BookingDto> actualBookings = bookingService.getBookingsAllItemsForUser(owner.getId(),
                 BookingStatusForFilter.CURRENT, 0, 10);
         assertEquals(expectedBookings, actualBookings);
     }
@@ -345,18 +459,18 @@ class BookingServiceImplIntegrationTest {
         festIem = itemRepository.save(festIem);
         secondItem = itemRepository.save(secondItem);
 
-        Booking festBooking = new Booking(null, LocalDateTime.now().minusWeeks(2), LocalDateTime.now().minusWeeks(1),
+        Booking festBooking = new Booking(null, now().minusWeeks(2), now().minusWeeks(1),
                 festIem, booker, BookingStatus.WAITING);
-        Booking secondBooking = new Booking(null, LocalDateTime.now().minusDays(2), LocalDateTime.now().plusDays(2),
+        Booking secondBooking = new Booking(null, now().minusDays(2), now().plusDays(2),
                 secondItem, booker, BookingStatus.WAITING);
-        Booking therdBooking = new Booking(null, LocalDateTime.now().minusHours(1), LocalDateTime.now().plusDays(3),
+        Booking therdBooking = new Booking(null, now().minusHours(1), now().plusDays(3),
                 secondItem, booker, BookingStatus.WAITING);
         festBooking = bookingRepository.save(festBooking);
         secondBooking = bookingRepository.save(secondBooking);
         therdBooking = bookingRepository.save(therdBooking);
 
-        List<Booking> expectedBookings = List.of(therdBooking, secondBooking, festBooking);
-        List<Booking> actualBookings = bookingService.getBookingsAllItemsForUser(owner.getId(),
+        List<BookingDto> expectedBookings = BookingMapper.toBookingDtoList(List.of(therdBooking, secondBooking, festBooking), true);
+        List<BookingDto> actualBookings = bookingService.getBookingsAllItemsForUser(owner.getId(),
                 BookingStatusForFilter.WAITING, 0, 10);
         assertEquals(expectedBookings, actualBookings);
     }
@@ -374,18 +488,18 @@ class BookingServiceImplIntegrationTest {
         festIem = itemRepository.save(festIem);
         secondItem = itemRepository.save(secondItem);
 
-        Booking festBooking = new Booking(null, LocalDateTime.now().minusWeeks(2), LocalDateTime.now().minusWeeks(1),
+        Booking festBooking = new Booking(null, now().minusWeeks(2), now().minusWeeks(1),
                 festIem, booker, BookingStatus.REJECTED);
-        Booking secondBooking = new Booking(null, LocalDateTime.now().minusDays(2), LocalDateTime.now().plusDays(2),
+        Booking secondBooking = new Booking(null, now().minusDays(2), now().plusDays(2),
                 secondItem, booker, BookingStatus.REJECTED);
-        Booking therdBooking = new Booking(null, LocalDateTime.now().minusHours(1), LocalDateTime.now().plusDays(3),
+        Booking therdBooking = new Booking(null, now().minusHours(1), now().plusDays(3),
                 secondItem, booker, BookingStatus.REJECTED);
         festBooking = bookingRepository.save(festBooking);
         secondBooking = bookingRepository.save(secondBooking);
         therdBooking = bookingRepository.save(therdBooking);
 
-        List<Booking> expectedBookings = List.of(therdBooking, secondBooking, festBooking);
-        List<Booking> actualBookings = bookingService.getBookingsAllItemsForUser(owner.getId(),
+        List<BookingDto> expectedBookings = BookingMapper.toBookingDtoList(List.of(therdBooking, secondBooking, festBooking), true);
+        List<BookingDto> actualBookings = bookingService.getBookingsAllItemsForUser(owner.getId(),
                 BookingStatusForFilter.REJECTED, 0, 10);
         assertEquals(expectedBookings, actualBookings);
     }
@@ -398,4 +512,151 @@ class BookingServiceImplIntegrationTest {
         assertThrows(UserNotFoundException.class, () -> bookingService.getBookingsAllItemsForUser(99L,
                 BookingStatusForFilter.REJECTED, 0, 10));
     }
+
+    @Test
+    void create_whenOverlapsWaitingOrApproved_thenBookingConflictException() {
+        User booker = userRepository.save(new User(null, "Иван Иванов", "ivai@ivanov.ru"));
+        User owner = userRepository.save(new User(null, "Петр Петров", "petr@petrov.ru"));
+        Item item = itemRepository.save(new Item(null, "дрель", "питание от сети",
+                true, owner, null, null, null, null));
+        LocalDateTime start = now().plusDays(1);
+        Booking first = bookingService.create(new Booking(null, start, start.plusDays(2), null, null, null),
+                booker.getId(), item.getId());
+
+        assertThrows(BookingConflictException.class, () -> bookingService.create(new Booking(null,
+                start.plusDays(1), start.plusDays(3), null, null, null), booker.getId(), item.getId()));
+
+        //интервалы полуоткрытые: бронирование может начаться в момент окончания предыдущего
+        bookingService.create(new Booking(null, start.plusDays(2), start.plusDays(3), null, null, null),
+                booker.getId(), item.getId());
+
+        bookingService.update(first.getId(), false, owner.getId());
+        Booking retry = bookingService.create(new Booking(null, start, start.plusDays(1), null, null, null),
+                booker.getId(), item.getId());
+        assertEquals(BookingStatus.WAITING, retry.getStatus());
+    }
+
+    @Test
+    void createAll_whenAllItemsFree_thenBookingPerItem() {
+        User booker = userRepository.save(new User(null, "Иван Иванов", "ivai@ivanov.ru"));
+        User owner = userRepository.save(new User(null, "Петр Петров", "petr@petrov.ru"));
+        Item drill = itemRepository.save(new Item(null, "дрель", "питание от сети",
+                true, owner, null, null, null, null));
+        Item ladder = itemRepository.save(new Item(null, "стремянка", "высота 2 метра",
+                true, owner, null, null, null, null));
+        LocalDateTime start = now().plusDays(1);
+
+        List<Booking> bookings = bookingService.createAll(List.of(ladder.getId(), drill.getId()), start,
+                start.plusDays(1), booker.getId());
+
+        assertEquals(List.of(ladder.getId(), drill.getId()), bookings.stream()
+                .map(booking -> booking.getItem().getId())
+                .collect(Collectors.toList()));
+        bookings.forEach(booking -> {
+            assertEquals(BookingStatus.WAITING, booking.getStatus());
+            assertEquals(booker.getId(), booking.getBooker().getId());
+            assertEquals(start, booking.getStart());
+        });
+    }
+
+    @Test
+    void createAll_whenOneItemBusyOrMissing_thenNothingBooked() {
+        User booker = userRepository.save(new User(null, "Иван Иванов", "ivai@ivanov.ru"));
+        User owner = userRepository.save(new User(null, "Петр Петров", "petr@petrov.ru"));
+        Item drill = itemRepository.save(new Item(null, "дрель", "питание от сети",
+                true, owner, null, null, null, null));
+        Item ladder = itemRepository.save(new Item(null, "стремянка", "высота 2 метра",
+                true, owner, null, null, null, null));
+        LocalDateTime start = now().plusDays(1);
+        bookingService.create(new Booking(null, start, start.plusDays(2), null, null, null),
+                booker.getId(), ladder.getId());
+        long before = bookingRepository.count();
+
+        assertThrows(BookingConflictException.class, () -> bookingService.createAll(List.of(drill.getId(),
+                ladder.getId()), start.plusDays(1), start.plusDays(3), booker.getId()));
+        assertThrows(ItemNotFoundException.class, () -> bookingService.createAll(List.of(drill.getId(), -1L),
+                start.plusDays(5), start.plusDays(6), booker.getId()));
+        assertThrows(BookingValidationException.class, () -> bookingService.createAll(List.of(drill.getId(),
+                drill.getId()), start.plusDays(5), start.plusDays(6), booker.getId()));
+        assertEquals(before, bookingRepository.count());
+    }
+
+    @Test
+    void saveAll_whenManyBookings_thenInsertedInJdbcBatches() {
+        User booker = userRepository.save(new User(null, "Иван Иванов", "ivai@ivanov.ru"));
+        User owner = userRepository.save(new User(null, "Петр Петров", "petr@petrov.ru"));
+        Item item = itemRepository.save(new Item(null, "дрель", "питание от сети",
+                true, owner, null, null, null, null));
+        entityManager.flush();
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            bookings.add(new Booking(null, now().plusDays(i), now().plusDays(i).plusHours(1), item, booker,
+                    BookingStatus.WAITING));
+        }
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        bookingRepository.saveAll(bookings);
+        entityManager.flush();
+
+        //с identity-ключами здесь было бы 120 отдельных insert'ов. Последовательность выдает id пачками по 50,
+        //а вставки уходят пакетами по batch_size: 3 пакета insert'ов и 3-4 обращения к последовательности
+        assertEquals(120, statistics.getEntityInsertCount());
+        assertThat(statistics.getPrepareStatementCount(), lessThanOrEqualTo(8L));
+        assertEquals(120, bookings.stream().map(Booking::getId).distinct().count());
+    }
+
+    @Test
+    void updateAll_whenMixedDecisions_thenEachBookingGetsOwnResultWithOneSelect() {
+        User booker = userRepository.save(new User(null, "Иван Иванов", "ivai@ivanov.ru"));
+        User owner = userRepository.save(new User(null, "Петр Петров", "petr@petrov.ru"));
+        Item drill = itemRepository.save(new Item(null, "дрель", "питание от сети",
+                true, owner, null, null, null, null));
+        Item foreign = itemRepository.save(new Item(null, "стремянка", "высота 2 метра",
+                true, booker, null, null, null, null));
+        Booking first = bookingRepository.save(new Booking(null, now().plusDays(1), now().plusDays(2),
+                drill, booker, BookingStatus.WAITING));
+        Booking second = bookingRepository.save(new Booking(null, now().plusDays(3), now().plusDays(4),
+                drill, booker, BookingStatus.WAITING));
+        Booking decided = bookingRepository.save(new Booking(null, now().plusDays(5), now().plusDays(6),
+                drill, booker, BookingStatus.APPROVED));
+        Booking alien = bookingRepository.save(new Booking(null, now().plusDays(1), now().plusDays(2),
+                foreign, owner, BookingStatus.WAITING));
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<BookingDecisionResultDto> results = bookingService.updateAll(List.of(
+                new BookingDecisionDto(first.getId(), true),
+                new BookingDecisionDto(second.getId(), false),
+                new BookingDecisionDto(decided.getId(), false),
+                new BookingDecisionDto(alien.getId(), true),
+                new BookingDecisionDto(-1L, true)), owner.getId());
+
+        assertEquals(List.of(
+                new BookingDecisionResultDto(first.getId(), BookingStatus.APPROVED, null),
+                new BookingDecisionResultDto(second.getId(), BookingStatus.REJECTED, null),
+                new BookingDecisionResultDto(decided.getId(), BookingStatus.APPROVED, "Бронирование уже рассмотрено"),
+                new BookingDecisionResultDto(alien.getId(), null, "Данная операция для вас недоступна"),
+                new BookingDecisionResultDto(-1L, null, "Бронирование не найдено")), results);
+        //бронирования вместе с вещами - одним запросом, без догрузки вещей и владельцев по одной
+        assertEquals(0, statistics.getEntityFetchCount());
+        entityManager.clear();
+        assertEquals(BookingStatus.APPROVED, bookingRepository.findById(first.getId()).orElseThrow().getStatus());
+        assertEquals(BookingStatus.REJECTED, bookingRepository.findById(second.getId()).orElseThrow().getStatus());
+        assertEquals(BookingStatus.WAITING, bookingRepository.findById(alien.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void updateAll_whenBookingRepeated_thenBookingValidationException() {
+        assertThrows(BookingValidationException.class, () -> bookingService.updateAll(List.of(
+                new BookingDecisionDto(1L, true), new BookingDecisionDto(1L, false)), 1L));
+        assertThrows(BookingValidationException.class, () -> bookingService.updateAll(List.of(), 1L));
+    }
+
+    //база хранит время с точностью до микросекунд, проекции возвращают именно его
+    private static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
 }
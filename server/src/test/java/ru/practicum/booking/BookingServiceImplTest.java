@@ -1,20 +1,32 @@
 package ru.practicum.booking;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.booking.conflict.BookingConflictChecker;
+import ru.practicum.booking.lock.ItemWriteLock;
+import ru.practicum.booking.lock.OptimisticRetry;
 import ru.practicum.booking.model.Booking;
+import ru.practicum.exception.BookingConflictException;
 import ru.practicum.exception.BookingNotFoundException;
 import ru.practicum.exception.BookingValidationException;
 import ru.practicum.item.ItemRepository;
+import ru.practicum.item.ItemViewService;
 import ru.practicum.item.model.Item;
 import ru.practicum.user.UserRepository;
 import ru.practicum.user.model.User;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Optional;
 
@@ -30,6 +42,17 @@ class BookingServiceImplTest {
     private ItemRepository itemRepository;
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private ItemViewService itemViewService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private BookingConflictChecker bookingConflictChecker;
+    @Mock
+    private ItemWriteLock itemWriteLock;
+    @Spy
+    private OptimisticRetry optimisticRetry = new OptimisticRetry(mock(PlatformTransactionManager.class),
+            new SimpleMeterRegistry(), 3, Duration.ZERO);
     @InjectMocks
     private BookingServiceImpl bookingService;
     @Captor
@@ -57,6 +80,27 @@ class BookingServiceImplTest {
         verify(bookingRepository).save(savedBooking);
     }
 
+    @Test
+    void create_whenItemAlreadyBooked_thenBookingConflictExceptionAndNotSaved() {
+        User user = new User(0L, "Иван Иванов", "ivai@ivanov.ru");
+        User booker = new User(1L, "Петр Петров", "petr@petrov.ru");
+        when(userRepository.findById(booker.getId())).thenReturn(Optional.of(booker));
+
+        Item item = new Item(0L, "дрель", "питание от сети",
+                true, user, null, null, null, null);
+        when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
+
+        LocalDateTime current = LocalDateTime.now();
+        Booking booking = new Booking(0L, current.plusDays(1),
+                current.plusDays(2), item, booker, null);
+        doThrow(new BookingConflictException("Вещь уже забронирована на эти даты"))
+                .when(bookingConflictChecker).check(item.getId(), booking.getStart(), booking.getEnd());
+
+        assertThrows(BookingConflictException.class,
+                () -> bookingService.create(booking, booker.getId(), item.getId()));
+        verify(bookingRepository, never()).save(any());
+    }
+
     @Test
     void create_whenBookingStartIsNull_thenBookingValidationException() {
         User user = new User(0L, "Иван Иванов", "ivai@ivanov.ru");
@@ -175,11 +219,9 @@ class BookingServiceImplTest {
     void update_whenBookingFound_thenUpdatedOnlyAvailableFields() {
         User owner = new User(0L, "Иван Иванов", "ivai@ivanov.ru");
         User booker = new User(1L, "Петр Петров", "petr@petrov.ru");
-        when(userRepository.findById(booker.getId())).thenReturn(Optional.of(booker));
 
         Item item = new Item(0L, "дрель", "питание от сети",
                 true, owner, null, null, null, null);
-        when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
 
         LocalDateTime current = LocalDateTime.now();
         Booking oldBooking = new Booking(0L, current.plusDays(1),
@@ -193,17 +235,17 @@ class BookingServiceImplTest {
         Booking saveBooking = bookingArgumentCaptor.getValue();
 
         assertEquals(BookingStatus.APPROVED, saveBooking.getStatus());
+        verify(itemViewService).refresh(item.getId());
+        verify(itemWriteLock, never()).lock(anyLong());
     }
 
     @Test
     void update_whenBookingNotOwner_thenBookingNotFoundException() {
         User owner = new User(0L, "Иван Иванов", "ivai@ivanov.ru");
         User booker = new User(1L, "Петр Петров", "petr@petrov.ru");
-        when(userRepository.findById(booker.getId())).thenReturn(Optional.of(booker));
 
         Item item = new Item(0L, "дрель", "питание от сети",
                 true, owner, null, null, null, null);
-        when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
 
         LocalDateTime current = LocalDateTime.now();
         Booking savedBooking = new Booking(0L, current.plusDays(1),
@@ -218,11 +260,9 @@ class BookingServiceImplTest {
     void update_whenBookingStatusNotValid_thenBookingValidationException() {
         User owner = new User(0L, "Иван Иванов", "ivai@ivanov.ru");
         User booker = new User(1L, "Петр Петров", "petr@petrov.ru");
-        when(userRepository.findById(booker.getId())).thenReturn(Optional.of(booker));
 
         Item item = new Item(0L, "дрель", "питание от сети",
                 true, owner, null, null, null, null);
-        when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
 
         LocalDateTime current = LocalDateTime.now();
         Booking savedBooking = new Booking(0L, current.plusDays(1),
@@ -233,6 +273,46 @@ class BookingServiceImplTest {
         verify(bookingRepository, never()).save(savedBooking);
     }
 
+    @Test
+    void update_whenConcurrentTransitionWon_thenRetriedAndBookingConflictException() {
+        User owner = new User(0L, "Иван Иванов", "ivai@ivanov.ru");
+        User booker = new User(1L, "Петр Петров", "petr@petrov.ru");
+
+        Item item = new Item(0L, "дрель", "питание от сети",
+                true, owner, null, null, null, null);
+
+        LocalDateTime current = LocalDateTime.now();
+        Booking waiting = new Booking(0L, current.plusDays(1),
+                current.plusDays(2), item, booker, BookingStatus.WAITING);
+        Booking rejected = new Booking(0L, current.plusDays(1),
+                current.plusDays(2), item, booker, BookingStatus.REJECTED);
+        when(bookingRepository.findById(waiting.getId())).thenReturn(Optional.of(waiting), Optional.of(rejected));
+        when(bookingRepository.save(any(Booking.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Booking.class, waiting.getId()));
+
+        assertThrows(BookingConflictException.class, () -> bookingService.update(waiting.getId(), true, owner.getId()));
+        verify(bookingRepository, times(2)).findById(waiting.getId());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void update_whenVersionConflictsOnEveryAttempt_thenOptimisticLockingFailureException() {
+        User owner = new User(0L, "Иван Иванов", "ivai@ivanov.ru");
+        User booker = new User(1L, "Петр Петров", "petr@petrov.ru");
+
+        Item item = new Item(0L, "дрель", "питание от сети",
+                true, owner, null, null, null, null);
+
+        LocalDateTime current = LocalDateTime.now();
+        when(bookingRepository.findById(0L)).thenAnswer(invocation -> Optional.of(new Booking(0L,
+                current.plusDays(1), current.plusDays(2), item, booker, BookingStatus.WAITING)));
+        when(bookingRepository.save(any(Booking.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Booking.class, 0L));
+
+        assertThrows(OptimisticLockingFailureException.class, () -> bookingService.update(0L, false, owner.getId()));
+        verify(bookingRepository, times(3)).save(any(Booking.class));
+    }
+
     @Test
     void getBookingById_whenBookingFound_thenBookingReturn() {
         User owner = new User(0L, "Иван Иванов", "ivai@ivanov.ru");
@@ -0,0 +1,147 @@
+package ru.practicum.booking.conflict;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import ru.practicum.booking.BookingIntervalEvent;
+import ru.practicum.booking.BookingRepository;
+import ru.practicum.booking.BookingStatus;
+import ru.practicum.booking.model.Booking;
+import ru.practicum.exception.BookingConflictException;
+import ru.practicum.item.model.Item;
+import ru.practicum.user.model.User;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+class IndexedBookingConflictCheckerTest {
+    @Autowired
+    private TestEntityManager em;
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private IndexedBookingConflictChecker conflictChecker;
+    private User booker;
+    private Item item;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        conflictChecker = new IndexedBookingConflictChecker(bookingRepository, meterRegistry, 100,
+                Duration.ofHours(1));
+        User owner = em.persist(new User(null, "Иван Иванов", "ivai@ivanov.ru"));
+        booker = em.persist(new User(null, "Петр Петров", "petr@petrov.ru"));
+        item = em.persist(new Item(null, "дрель", "питание от сети", true, owner, null, null, null, null));
+        start = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS).plusDays(1);
+        save(start, start.plusDays(2), BookingStatus.APPROVED);
+        save(start.plusDays(5), start.plusDays(6), BookingStatus.REJECTED);
+        save(start.minusDays(5), start.minusDays(2), BookingStatus.APPROVED);
+        em.flush();
+    }
+
+    @Test
+    void check_whenLoadedFromDatabase_thenOnlyWaitingAndApprovedConflict() {
+        assertThrows(BookingConflictException.class,
+                () -> conflictChecker.check(item.getId(), start.plusDays(1), start.plusDays(3)));
+        assertDoesNotThrow(() -> conflictChecker.check(item.getId(), start.plusDays(5), start.plusDays(6)));
+        assertDoesNotThrow(() -> conflictChecker.check(item.getId(), start.plusDays(2), start.plusDays(3)));
+        assertEquals(1, conflictChecker.getStats().getIntervals());
+        assertEquals(1.0, meterRegistry.get("bookings.conflicts").counter().count());
+    }
+
+    @Test
+    void onBookingIntervalChanged_whenCreatedAndRejected_thenTreeFollows() {
+        conflictChecker.check(item.getId(), start.plusDays(3), start.plusDays(4));
+        Booking waiting = save(start.plusDays(3), start.plusDays(4), BookingStatus.WAITING);
+        conflictChecker.onBookingIntervalChanged(event(waiting, true));
+
+        assertThrows(BookingConflictException.class,
+                () -> conflictChecker.check(item.getId(), start.plusDays(3), start.plusDays(4)));
+
+        conflictChecker.onBookingIntervalChanged(event(waiting, false));
+
+        assertDoesNotThrow(() -> conflictChecker.check(item.getId(), start.plusDays(3), start.plusDays(4)));
+    }
+
+    @Test
+    void verify_whenDatabaseChangedBehindIndex_thenDriftReportedAndTreeReloaded() {
+        conflictChecker.check(item.getId(), start.plusDays(3), start.plusDays(4));
+        save(start.plusDays(3), start.plusDays(4), BookingStatus.WAITING);
+        em.flush();
+
+        BookingConflictIndexStats stats = conflictChecker.verify();
+
+        assertEquals(1, stats.getDrift());
+        assertEquals(2, stats.getIntervals());
+        assertThrows(BookingConflictException.class,
+                () -> conflictChecker.check(item.getId(), start.plusDays(3), start.plusDays(4)));
+        assertEquals(0, conflictChecker.verify().getDrift());
+    }
+
+    @Test
+    void check_whenRejectedWhileTreeLoading_thenSnapshotNotCached() {
+        BookingRepository repository = mock(BookingRepository.class);
+        IndexedBookingConflictChecker checker = new IndexedBookingConflictChecker(repository, meterRegistry, 100,
+                Duration.ofHours(1));
+        BookingInterval rejected = new BookingInterval(7L, start.plusDays(3), start.plusDays(4));
+        //отклонение коммитится после чтения таблицы, но до того, как дерево попало в кэш
+        when(repository.findIntervals(anyLong(), any(), any()))
+                .thenAnswer(invocation -> {
+                    checker.onBookingIntervalChanged(new BookingIntervalEvent(item.getId(), rejected.getId(),
+                            rejected.getStart(), rejected.getEnd(), false));
+                    return List.of(rejected);
+                })
+                .thenReturn(List.of());
+
+        checker.check(item.getId(), start.plusDays(10), start.plusDays(11));
+
+        assertDoesNotThrow(() -> checker.check(item.getId(), start.plusDays(3), start.plusDays(4)));
+        verify(repository, times(2)).findIntervals(anyLong(), any(), any());
+    }
+
+    @Test
+    void verify_whenBookingCreatedWhileReloading_thenTreeNotReplacedBySnapshot() {
+        BookingRepository repository = mock(BookingRepository.class);
+        IndexedBookingConflictChecker checker = new IndexedBookingConflictChecker(repository, meterRegistry, 100,
+                Duration.ofHours(1));
+        when(repository.findIntervals(anyLong(), any(), any())).thenReturn(List.of());
+        checker.check(item.getId(), start.plusDays(3), start.plusDays(4));
+        //бронирование коммитится после чтения таблицы сверкой, но до замены дерева: снимок его не содержит
+        when(repository.findIntervals(anyLong(), any(), any())).thenAnswer(invocation -> {
+            checker.onBookingIntervalChanged(new BookingIntervalEvent(item.getId(), 7L, start.plusDays(3),
+                    start.plusDays(4), true));
+            return List.of();
+        });
+
+        assertEquals(0, checker.verify().getDrift());
+        assertThrows(BookingConflictException.class,
+                () -> checker.check(item.getId(), start.plusDays(3), start.plusDays(4)));
+    }
+
+    private Booking save(LocalDateTime from, LocalDateTime to, BookingStatus status) {
+        return em.persist(new Booking(null, from, to, item, booker, status));
+    }
+
+    private BookingIntervalEvent event(Booking booking, boolean occupying) {
+        return new BookingIntervalEvent(item.getId(), booking.getId(), booking.getStart(), booking.getEnd(),
+                occupying);
+    }
+}
@@ -0,0 +1,74 @@
+package ru.practicum.booking.conflict;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class IntervalTreeTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    @Test
+    void findOverlap_whenIntervalsTouch_thenNoOverlap() {
+        IntervalTree tree = new IntervalTree();
+        tree.add(interval(1, 10, 20));
+
+        assertNull(tree.findOverlap(hour(20), hour(30)));
+        assertNull(tree.findOverlap(hour(0), hour(10)));
+        assertEquals(1, tree.findOverlap(hour(19), hour(21)).getId());
+        assertEquals(1, tree.findOverlap(hour(12), hour(13)).getId());
+    }
+
+    @Test
+    void findOverlap_whenLongIntervalHiddenOnTheLeft_thenFound() {
+        IntervalTree tree = new IntervalTree();
+        tree.add(interval(1, 0, 100));
+        for (int i = 2; i < 20; i++) {
+            tree.add(interval(i, i * 5, i * 5 + 1));
+        }
+
+        assertEquals(1, tree.findOverlap(hour(98), hour(99)).getId());
+    }
+
+    @Test
+    void findOverlap_whenRandomChanges_thenSameAsFullScan() {
+        Random random = new Random(42);
+        IntervalTree tree = new IntervalTree();
+        List<BookingInterval> all = new ArrayList<>();
+        for (int step = 0; step < 2000; step++) {
+            if (!all.isEmpty() && random.nextInt(3) == 0) {
+                BookingInterval removed = all.remove(random.nextInt(all.size()));
+                tree.remove(removed.getId());
+            } else {
+                int start = random.nextInt(1000);
+                BookingInterval added = interval(step, start, start + 1 + random.nextInt(50));
+                all.add(added);
+                tree.add(added);
+            }
+            int start = random.nextInt(1000);
+            LocalDateTime from = hour(start);
+            LocalDateTime to = hour(start + 1 + random.nextInt(30));
+            boolean expected = all.stream().anyMatch(interval -> interval.overlaps(from, to));
+            BookingInterval found = tree.findOverlap(from, to);
+
+            assertEquals(expected, found != null);
+            if (found != null) {
+                assertEquals(true, found.overlaps(from, to));
+            }
+            assertEquals(all.size(), tree.size());
+        }
+    }
+
+    private static BookingInterval interval(long id, int startHour, int endHour) {
+        return new BookingInterval(id, hour(startHour), hour(endHour));
+    }
+
+    private static LocalDateTime hour(int hour) {
+        return BASE.plusHours(hour);
+    }
+}
@@ -0,0 +1,76 @@
+package ru.practicum.booking.lock;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import ru.practicum.booking.model.Booking;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class OptimisticRetryTest {
+    private PlatformTransactionManager transactionManager;
+    private SimpleMeterRegistry meterRegistry;
+    private OptimisticRetry retry;
+
+    @BeforeEach
+    void setUp() {
+        transactionManager = mock(PlatformTransactionManager.class);
+        meterRegistry = new SimpleMeterRegistry();
+        retry = new OptimisticRetry(transactionManager, meterRegistry, 3, Duration.ZERO);
+    }
+
+    @Test
+    void run_whenConflictResolvedOnSecondAttempt_thenResultOfSecondAttempt() {
+        List<Integer> attempts = new ArrayList<>();
+
+        String result = retry.run(attempt -> {
+            attempts.add(attempt);
+            if (attempt == 1) {
+                throw new ObjectOptimisticLockingFailureException(Booking.class, 1L);
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(List.of(1, 2), attempts);
+        assertEquals(1.0, meterRegistry.get("bookings.retries").counter().count());
+        //каждая попытка - своя транзакция
+        verify(transactionManager, times(2)).getTransaction(any(TransactionDefinition.class));
+    }
+
+    @Test
+    void run_whenConflictOnEveryAttempt_thenLastConflictRethrown() {
+        List<Integer> attempts = new ArrayList<>();
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> retry.run(attempt -> {
+            attempts.add(attempt);
+            throw new ObjectOptimisticLockingFailureException(Booking.class, 1L);
+        }));
+
+        assertEquals(List.of(1, 2, 3), attempts);
+        assertEquals(2.0, meterRegistry.get("bookings.retries").counter().count());
+    }
+
+    @Test
+    void run_whenOtherException_thenNotRetried() {
+        List<Integer> attempts = new ArrayList<>();
+
+        assertThrows(IllegalStateException.class, () -> retry.run(attempt -> {
+            attempts.add(attempt);
+            throw new IllegalStateException();
+        }));
+
+        assertEquals(List.of(1), attempts);
+        assertEquals(0.0, meterRegistry.get("bookings.retries").counter().count());
+    }
+}
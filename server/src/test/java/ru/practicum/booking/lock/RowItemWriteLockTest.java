@@ -0,0 +1,31 @@
+package ru.practicum.booking.lock;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import ru.practicum.item.ItemRepository;
+import ru.practicum.item.model.Item;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class RowItemWriteLockTest {
+
+    @Test
+    void lockAll_whenIdsUnordered_thenRowsLockedByAscendingId() {
+        ItemRepository itemRepository = mock(ItemRepository.class);
+        when(itemRepository.lockById(anyLong())).thenReturn(Optional.of(new Item()));
+        RowItemWriteLock itemWriteLock = new RowItemWriteLock(itemRepository, new SimpleMeterRegistry());
+
+        itemWriteLock.lockAll(List.of(3L, 1L, 2L, 1L));
+
+        InOrder inOrder = inOrder(itemRepository);
+        inOrder.verify(itemRepository).lockById(1L);
+        inOrder.verify(itemRepository).lockById(2L);
+        inOrder.verify(itemRepository).lockById(3L);
+        inOrder.verifyNoMoreInteractions();
+    }
+}
@@ -0,0 +1,184 @@
+package ru.practicum.booking.lock;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.exception.BookingConflictException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedItemWriteLockTest {
+    private SimpleMeterRegistry meterRegistry;
+    private StripedItemWriteLock itemWriteLock;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        itemWriteLock = new StripedItemWriteLock(meterRegistry, 256, Duration.ofMillis(200));
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void lock_whenSameItemLockedByOtherTransaction_thenWaitsUntilItCompletes() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        itemWriteLock.lock(1L);
+
+        assertThrows(BookingConflictException.class, () -> getCause(executor.submit(() -> lockInTransaction(1L))));
+
+        complete();
+
+        assertTrue(executor.submit(() -> lockInTransaction(1L)).get());
+        assertEquals(3, meterRegistry.get("bookings.lock.wait").timer().count());
+    }
+
+    @Test
+    void lock_whenDifferentItems_thenNotBlocked() throws Exception {
+        assertNotSame(itemWriteLock.stripeOf(1L), itemWriteLock.stripeOf(2L));
+        TransactionSynchronizationManager.initSynchronization();
+        itemWriteLock.lock(1L);
+
+        assertTrue(executor.submit(() -> lockInTransaction(2L)).get());
+    }
+
+    @Test
+    void lock_whenSameTransactionLocksTwice_thenReentrant() {
+        TransactionSynchronizationManager.initSynchronization();
+        itemWriteLock.lock(1L);
+        itemWriteLock.lock(1L);
+        complete();
+
+        assertFalse(itemWriteLock.stripeOf(1L).isLocked());
+    }
+
+    @Test
+    void lockAll_whenStripeOrderDiffersFromIdOrder_thenStripesLockedByIndex() throws Exception {
+        long first = 1L;
+        long second = LongStream.rangeClosed(2, 1000)
+                .filter(id -> itemWriteLock.indexOf(id) < itemWriteLock.indexOf(first))
+                .findFirst()
+                .orElseThrow();
+        TransactionSynchronizationManager.initSynchronization();
+        itemWriteLock.lock(second);
+
+        Future<Boolean> cart = executor.submit(() -> lockAllInTransaction(List.of(first, second)));
+        while (!itemWriteLock.stripeOf(second).hasQueuedThreads()) {
+            Thread.sleep(1);
+        }
+
+        //корзина ждет полосу с меньшим номером, не удерживая полосу вещи с меньшим id
+        assertFalse(itemWriteLock.stripeOf(first).isLocked());
+        complete();
+        assertTrue(cart.get());
+    }
+
+    @Test
+    void lockAll_whenCartsCross_thenNoConflict() throws Exception {
+        //четыре полосы: вещи a < c и b < d, у которых полоса c совпадает с полосой b, а полоса d - с полосой a.
+        //В порядке id первая корзина берет полосы a, c, вторая - c, a: без общего порядка они ждали бы друг друга
+        StripedItemWriteLock lock = new StripedItemWriteLock(meterRegistry, 4, Duration.ofMillis(200));
+        long a = 1L;
+        long c = LongStream.rangeClosed(2, 1000)
+                .filter(id -> lock.indexOf(id) != lock.indexOf(a))
+                .findFirst()
+                .orElseThrow();
+        long b = LongStream.rangeClosed(c + 1, 1000)
+                .filter(id -> lock.indexOf(id) == lock.indexOf(c))
+                .findFirst()
+                .orElseThrow();
+        long d = LongStream.rangeClosed(b + 1, 1000)
+                .filter(id -> lock.indexOf(id) == lock.indexOf(a))
+                .findFirst()
+                .orElseThrow();
+        ExecutorService carts = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 50; i++) {
+                CyclicBarrier barrier = new CyclicBarrier(2);
+                Future<Boolean> firstCart = carts.submit(() -> lockAllInTransaction(lock, List.of(a, c), barrier));
+                Future<Boolean> secondCart = carts.submit(() -> lockAllInTransaction(lock, List.of(b, d), barrier));
+
+                assertTrue(firstCart.get());
+                assertTrue(secondCart.get());
+            }
+        } finally {
+            carts.shutdownNow();
+        }
+    }
+
+    @Test
+    void lock_whenNoTransaction_thenIllegalStateException() {
+        assertThrows(IllegalStateException.class, () -> itemWriteLock.lock(1L));
+    }
+
+    //транзакция в другом потоке: берет блокировку и сразу завершается
+    private boolean lockInTransaction(long itemId) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            itemWriteLock.lock(itemId);
+            complete();
+            return true;
+        } finally {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        }
+    }
+
+    private boolean lockAllInTransaction(List<Long> itemIds) throws Exception {
+        return lockAllInTransaction(itemWriteLock, itemIds, null);
+    }
+
+    //то же для набора вещей: после барьера обе корзины блокируют одновременно и держат блокировки немного дольше
+    private static boolean lockAllInTransaction(StripedItemWriteLock lock, List<Long> itemIds,
+                                                CyclicBarrier barrier) throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            if (barrier != null) {
+                barrier.await();
+            }
+            lock.lockAll(itemIds);
+            Thread.sleep(1);
+            complete();
+            return true;
+        } finally {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        }
+    }
+
+    private static void complete() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private static void getCause(Future<?> future) throws Throwable {
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package ru.practicum.booking.query;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import ru.practicum.booking.BookingRepository;
+import ru.practicum.booking.BookingStatus;
+import ru.practicum.booking.BookingStatusForFilter;
+import ru.practicum.booking.dto.BookingDto;
+import ru.practicum.booking.dto.BookingMapper;
+import ru.practicum.booking.model.Booking;
+import ru.practicum.item.ItemRepository;
+import ru.practicum.item.model.Item;
+import ru.practicum.pagination.Cursor;
+import ru.practicum.user.UserRepository;
+import ru.practicum.user.model.User;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.containsStringIgnoringCase;
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "ru.practicum.booking.query.RecordingStatementInspector")
+class BookingQueryEngineTest {
+    @Autowired
+    private TestEntityManager em;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private BookingQueryEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new BookingQueryEngine(em.getEntityManager());
+    }
+
+    @Test
+    void find_whenOwnerWaiting_thenWaitingBookingsOfOwnerItems() {
+        User booker = new User(null, "Иван Иванов", "ivai@ivanov.ru");
+        User owner = new User(null, "Петр Петров", "petr@petrov.ru");
+        booker = userRepository.save(booker);
+        owner = userRepository.save(owner);
+
+        Item item = new Item(null, "стремянка", "высота 2 метра",
+                true, owner, null, null, null, null);
+        item = itemRepository.save(item);
+
+
+        Booking booking = new Booking(null, now().plusDays(4), now().plusDays(5),
+                item, booker, BookingStatus.WAITING);
+        booking = bookingRepository.save(booking);
+
+        List<BookingDto> expectedBookings = BookingMapper.toBookingDtoList(List.of(booking), true);
+        List<BookingDto> actualBookings = find(owner, BookingStatusForFilter.WAITING, now());
+        assertEquals(expectedBookings, actualBookings);
+    }
+
+    @Test
+    void find_whenOwnerAll_thenAllBookingsByStartDesc() {
+        User booker = new User(null, "Иван Иванов", "ivai@ivanov.ru");
+        User owner = new User(null, "Петр Петров", "petr@petrov.ru");
+        booker = userRepository.save(booker);
+        owner = userRepository.save(owner);
+        Item festIem = new Item(null, "дрель", "питание от сети",
+                true, owner, null, null, null, null);
+        Item secondItem = new Item(null, "стремянка", "высота 2 метра",
+                true, owner, null, null, null, null);
+        festIem = itemRepository.save(festIem);
+        secondItem = itemRepository.save(secondItem);
+
+
+        Booking festBooking = new Booking(null, now(), now().plusDays(2),
+                festIem, booker, BookingStatus.APPROVED);
+        Booking secondBooking = new Booking(null, now().plusDays(2), now().plusDays(3),
+                secondItem, booker, BookingStatus.APPROVED);
+        Booking therdBooking = new Booking(null, now().plusDays(4), now().plusDays(5),
+                secondItem, booker, BookingStatus.WAITING);
+        festBooking = bookingRepository.save(festBooking);
+        secondBooking = bookingRepository.save(secondBooking);
+        therdBooking = bookingRepository.save(therdBooking);
+
+        List<BookingDto> expectedBookings = BookingMapper.toBookingDtoList(List.of(therdBooking, secondBooking, festBooking), true);
+        List<BookingDto> actualBookings = find(owner, BookingStatusForFilter.ALL, now());
+        assertEquals(expectedBookings, actualBookings);
+    }
+
+    @Test
+    void find_whenOwnerPast_thenCompletedBookings() {
+        User booker = new User(null, "Иван Иванов", "ivai@ivanov.ru");
+        User owner = new User(null, "Петр Петров", "petr@petrov.ru");
+        booker = userRepository.save(booker);
+        owner = userRepository.save(owner);
+        Item firstIem = new Item(null, "дрель", "питание от сети",
+                true, owner, null, null, null, null);
+        Item secondItem = new Item(null, "стремянка", "высота 2 метра",
+                true, owner, null, null, null, null);
+        firstIem = itemRepository.save(firstIem);
+        secondItem = itemRepository.save(secondItem);
+
+        LocalDateTime created = now();
+
+        Booking festBooking = new Booking(null, created.minusDays(7), created.minusDays(5),
+                firstIem, booker, BookingStatus.APPROVED);
+        Booking secondBooking = new Booking(null, created.minusDays(3), created.minusDays(1),
+                secondItem, booker, BookingStatus.APPROVED);
+        festBooking = bookingRepository.save(festBooking);
+        secondBooking = bookingRepository.save(secondBooking);
+
+        List<BookingDto> expectedBookings = BookingMapper.toBookingDtoList(List.of(secondBooking, festBooking), true);
+        List<BookingDto> actualBookings = find(owner, BookingStatusForFilter.PAST, created);
+        assertEquals(expectedBookings, actualBookings);
+    }
+
+    @Test
+    void find_whenOwnerFuture_thenFutureBookingsByStartDesc() {
+        User booker = new User(null, "Иван Иванов", "ivai@ivanov.ru");
+        User owner = new User(null, "Петр Петров", "petr@petrov.ru");
+        booker = userRepository.save(booker);
+        owner = userRepository.save(owner);
+        Item firstIem = new Item(null, "дрель", "питание от сети",
+                true, owner, null, null, null, null);
+        Item secondItem = new Item(null, "стремянка", "высота 2 метра",
+                true, owner, null, null, null, null);
+        firstIem = itemRepository.save(firstIem);
+        secondItem = itemRepository.save(secondItem);
+
+        LocalDateTime created = now();
+
+        Booking festBooking = new Booking(null, created.plusDays(7), created.plusDays(5),
+                firstIem, booker, BookingStatus.APPROVED);
+        Booking secondBooking = new Booking(null, created.plusDays(3), created.plusDays(1),
+                secondItem, booker, BookingStatus.WAITING);
+        festBooking = bookingRepository.save(festBooking);
+        secondBooking = bookingRepository.save(secondBooking);
+
+        List<BookingDto> expectedBookings = BookingMapper.toBookingDtoList(List.of(festBooking, secondBooking), true);
+        List<BookingDto> actualBookings = find(owner, BookingStatusForFilter.FUTURE, created);
+        assertEquals(expectedBookings, actualBookings);
+    }
+
+    @Test
+    void find_whenOwnerCurrent_thenCurrentBookingsByStartAsc() {
+        User booker = new User(null, "Иван Иванов", "ivai@ivanov.ru");
+        User owner = new User(null, "Петр Петров", "petr@petrov.ru");
+        booker = userRepository.save(booker);
+        owner = userRepository.save(owner);
+        Item firstIem = new Item(null, "дрель", "питание от сети",
+                true, owner, null, null, null, null);
+        Item secondItem = new Item(null, "стремянка", "высота 2 метра",
+                true, owner, null, null, null, null);
+        Item thirdItem = new Item(null, "шуруповерт", "работает от аккумулятора",
+                true, owner, null, null, null, null);
+        firstIem = itemRepository.save(firstIem);
+        secondItem = itemRepository.save(secondItem);
+        thirdItem = itemRepository.save(thirdItem);
+
+        LocalDateTime created = now();
+
+        Booking festBooking = new Booking(null, created.minusDays(7), created.plusHours(12),
+                firstIem, booker, BookingStatus.APPROVED);
+        Booking secondBooking = new Booking(null, created.minusDays(3), created.plusDays(1),
+                secondItem, booker, BookingStatus.APPROVED);
+        Booking thirdBooking = new Booking(null, created.minusHours(3), created.plusDays(5),
+                thirdItem, booker, BookingStatus.WAITING);
+        festBooking = bookingRepository.save(festBooking);
+        secondBooking = bookingRepository.save(secondBooking);
+        thirdBooking = bookingRepository.save(thirdBooking);
+
+        List<BookingDto> expectedBookings = BookingMapper.toBookingDtoList(List.of(festBooking, secondBooking, thirdBooking), true);
+        List<BookingDto> actualBookings = find(owner, BookingStatusForFilter.CURRENT, created);
+        assertEquals(expectedBookings, actualBookings);
+    }
+
+    @Test
+    void find_whenPagedByCursor_thenContinuesAfterCursorWithoutRepeats() {
+        User booker = userRepository.save(new User(null, "Иван Иванов", "ivai@ivanov.ru"));
+        User owner = userRepository.save(new User(null, "Петр Петров", "petr@petrov.ru"));
+        Item item = itemRepository.save(new Item(null, "дрель", "питание от сети",
+                true, owner, null, null, null, null));
+        LocalDateTime start = now().plusDays(1);
+        Booking first = bookingRepository.save(new Booking(null, start, start.plusHours(1), item, booker,
+                BookingStatus.WAITING));
+        Booking second = bookingRepository.save(new Booking(null, start, start.plusHours(1), item, booker,
+                BookingStatus.WAITING));
+        Booking third = bookingRepository.save(new Booking(null, start.plusDays(1), start.plusDays(2), item, booker,
+                BookingStatus.WAITING));
+
+        List<BookingDto> firstPage = engine.find(BookingQuery.after(BookingRole.BOOKER, booker.getId(),
+                BookingStatusForFilter.ALL, now(), Cursor.LATEST, 2));
+        BookingDto last = firstPage.get(1);
+        List<BookingDto> secondPage = engine.find(BookingQuery.after(BookingRole.BOOKER, booker.getId(),
+                BookingStatusForFilter.ALL, now(), Cursor.decode(Cursor.encode(last.getStart(), last.getId()),
+                        Cursor.LATEST), 2));
+
+        assertEquals(List.of(third.getId(), second.getId()), List.of(firstPage.get(0).getId(), last.getId()));
+        assertEquals(List.of(BookingMapper.toBookingDto(first, true)), secondPage);
+    }
+
+    @ParameterizedTest
+    @EnumSource(BookingStatusForFilter.class)
+    void find_whenPagedByCursor_thenValuesBoundAsParameters(BookingStatusForFilter state) {
+        LocalDateTime cursorStart = LocalDateTime.of(2031, 7, 13, 10, 0);
+        RecordingStatementInspector.clear();
+
+        engine.find(BookingQuery.after(BookingRole.BOOKER, 424242L, state, now(), Cursor.decode(
+                Cursor.encode(cursorStart, 987654L), Cursor.LATEST), 10));
+
+        //ни id пользователя, ни курсор, ни текущий момент не попадают в текст запроса
+        String sql = RecordingStatementInspector.last();
+        assertThat(sql, not(containsString("424242")));
+        assertThat(sql, not(containsString("987654")));
+        assertThat(sql, not(containsString("2031")));
+        assertThat(sql, not(containsString(String.valueOf(now().getYear()))));
+    }
+
+    @ParameterizedTest
+    @EnumSource(BookingStatusForFilter.class)
+    void explain_whenBookerListsState_thenBookingsReadByBookerIndex(BookingStatusForFilter state) {
+        String plan = plan(BookingRole.BOOKER, state);
+
+        //бронирования читаются первыми и по индексу с booker_id в начале, без полного просмотра таблицы
+        assertThat(plan, matchesPattern("(?s).*FROM \"PUBLIC\"\\.\"BOOKINGS\".*" +
+                "/\\* PUBLIC\\.\\w+: BOOKER_ID = \\?1.*"));
+        assertThat(plan, not(containsStringIgnoringCase("tableScan")));
+    }
+
+    @ParameterizedTest
+    @EnumSource(BookingStatusForFilter.class)
+    void explain_whenOwnerListsState_thenItemsByOwnerThenBookingsByItemIndex(BookingStatusForFilter state) {
+        String plan = plan(BookingRole.OWNER, state);
+
+        //сначала вещи владельца по idx_items_owner_id, затем бронирования каждой вещи по индексу с item_id в начале
+        assertThat(plan, containsStringIgnoringCase("idx_items_owner_id: owner_id = ?1"));
+        assertThat(plan, matchesPattern("(?s).*INNER JOIN \"PUBLIC\"\\.\"BOOKINGS\".*" +
+                "/\\* PUBLIC\\.\\w+: .*ITEM_ID = ITEM1_\\.ID.*"));
+        if (state == BookingStatusForFilter.WAITING || state == BookingStatusForFilter.REJECTED) {
+            assertThat(plan, containsStringIgnoringCase("idx_bookings_item_status_start"));
+        }
+        assertThat(plan, not(containsStringIgnoringCase("tableScan")));
+    }
+
+    //план того sql, который построитель запроса отправил в базу
+    private String plan(BookingRole role, BookingStatusForFilter state) {
+        RecordingStatementInspector.clear();
+        engine.find(BookingQuery.page(role, 1L, state, now(), 0, 10));
+        return explain(RecordingStatementInspector.last());
+    }
+
+    private List<BookingDto> find(User owner, BookingStatusForFilter state, LocalDateTime now) {
+        return engine.find(BookingQuery.page(BookingRole.OWNER, owner.getId(), state, now, 0, 20));
+    }
+
+    //план выполнения запроса в том виде, в котором его выбирает база
+    private String explain(String sql) {
+        return jdbcTemplate.queryForObject("explain " + sql, String.class);
+    }
+
+    //база хранит время с точностью до микросекунд, проекции возвращают именно его
+    private static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+}
@@ -0,0 +1,31 @@
+package ru.practicum.booking.query;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//запоминает sql, который Hibernate отправляет в базу, чтобы проверить его план
+public class RecordingStatementInspector implements StatementInspector {
+    private static final List<String> STATEMENTS = new ArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        synchronized (STATEMENTS) {
+            STATEMENTS.add(sql);
+        }
+        return sql;
+    }
+
+    static void clear() {
+        synchronized (STATEMENTS) {
+            STATEMENTS.clear();
+        }
+    }
+
+    static String last() {
+        synchronized (STATEMENTS) {
+            return STATEMENTS.get(STATEMENTS.size() - 1);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import ru.practicum.booking.BookingRepository;
 import ru.practicum.booking.BookingServiceImpl;
 import ru.practicum.booking.BookingStatus;
@@ -35,6 +36,10 @@ class CommentServiceImplTest {
     private UserRepository userRepository;
     @Mock
     private BookingRepository bookingRepository;
+    @Mock
+    private ItemViewService itemViewService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
     @InjectMocks
     private CommentServiceImpl commentService;
     @Captor
@@ -61,8 +66,8 @@ class CommentServiceImplTest {
         mockBookingService.getAllBookings(author.getId(),
                 BookingStatusForFilter.PAST, 1, 1);
 
-        when(bookingRepository.findByBookerAndEndIsBeforeAndItem(any(), any(), any()))
-                .thenReturn(List.of(booking));
+        when(bookingRepository.existsByBookerIdAndItemIdAndEndIsBefore(eq(author.getId()), eq(item.getId()), any()))
+                .thenReturn(true);
 
         Comment savedComment = new Comment(0L, "вся правда об использовании дрели", item, author, current);
         when(commentRepository.save(savedComment)).thenReturn(savedComment);
@@ -119,7 +124,7 @@ class CommentServiceImplTest {
 
         Item item = new Item(0L, "дрель", "дрель аккумуляторная",
                 true, owner, null, null, null, null);
-        when(itemRepository.findById(item.getId())).thenReturn(Optional.of(item));
+        when(itemRepository.existsById(item.getId())).thenReturn(true);
 
         Comment fistComment = new Comment();
         Comment secondComment = new Comment();
@@ -127,7 +132,7 @@ class CommentServiceImplTest {
         expectedComments.add(fistComment);
         expectedComments.add(secondComment);
 
-        when(commentRepository.findAllByItem(item)).thenReturn(expectedComments);
+        when(commentRepository.findAllByItemId(item.getId())).thenReturn(expectedComments);
         List<Comment> actualComments = commentService.getComments(item.getId());
         assertEquals(expectedComments, actualComments);
     }
@@ -135,7 +140,7 @@ class CommentServiceImplTest {
     @Test
     void getComments_whenItemNotValid_thenItemValidationException() {
         long id = 0L;
-        when(itemRepository.findById(id)).thenReturn(Optional.empty());
+        when(itemRepository.existsById(id)).thenReturn(false);
         assertThrows(ItemValidationException.class, () -> commentService.getComments(id));
     }
 }
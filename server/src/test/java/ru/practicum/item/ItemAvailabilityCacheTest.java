@@ -0,0 +1,94 @@
+package ru.practicum.item;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.booking.conflict.BookingInterval;
+import ru.practicum.exception.ItemValidationException;
+import ru.practicum.item.dto.TimeSlotDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ItemAvailabilityCacheTest {
+    private static final LocalDateTime BASE = LocalDateTime.now().plusYears(1).withNano(0);
+
+    @Mock
+    private ItemService itemService;
+    private ItemAvailabilityCache availabilityCache;
+
+    @BeforeEach
+    void setUp() {
+        availabilityCache = new ItemAvailabilityCache(itemService, new SimpleMeterRegistry(), 100,
+                Duration.ofMinutes(10));
+    }
+
+    @Test
+    void freeSlots_whenIntervalsOverlapAndTouch_thenGapsBetweenThem() {
+        List<BookingInterval> occupied = List.of(
+                interval(1, 2, 5),
+                interval(2, 3, 4),
+                interval(3, 5, 6),
+                interval(4, 8, 12),
+                interval(5, 20, 30));
+
+        assertEquals(List.of(slot(0, 2), slot(6, 8), slot(12, 15)),
+                ItemAvailabilityCache.freeSlots(occupied, hour(0), hour(15)));
+        assertEquals(List.of(), ItemAvailabilityCache.freeSlots(occupied, hour(3), hour(6)));
+        assertEquals(List.of(slot(12, 20)), ItemAvailabilityCache.freeSlots(occupied, hour(10), hour(21)));
+        assertEquals(List.of(slot(0, 1)), ItemAvailabilityCache.freeSlots(List.of(), hour(0), hour(1)));
+    }
+
+    @Test
+    void getAvailability_whenRequestedTwice_thenLoadedOnceUntilItemChanged() {
+        when(itemService.getOccupiedIntervals(1L)).thenReturn(List.of(interval(1, 2, 5)));
+
+        availabilityCache.getAvailability(1L, hour(0), hour(10));
+        List<TimeSlotDto> slots = availabilityCache.getAvailability(1L, hour(4), hour(8));
+
+        assertEquals(List.of(slot(5, 8)), slots);
+        verify(itemService, times(1)).getOccupiedIntervals(1L);
+
+        availabilityCache.onItemChanged(new ItemChangedEvent(1L));
+        availabilityCache.getAvailability(1L, hour(0), hour(10));
+
+        verify(itemService, times(2)).getOccupiedIntervals(1L);
+    }
+
+    @Test
+    void getAvailability_whenWindowInPast_thenStartsNow() {
+        when(itemService.getOccupiedIntervals(1L)).thenReturn(List.of());
+
+        List<TimeSlotDto> slots = availabilityCache.getAvailability(1L, BASE.minusYears(2), BASE);
+
+        assertEquals(1, slots.size());
+        assertEquals(true, slots.get(0).getStart().isAfter(BASE.minusYears(2)));
+    }
+
+    @Test
+    void getAvailability_whenWindowEmpty_thenItemValidationException() {
+        assertThrows(ItemValidationException.class, () -> availabilityCache.getAvailability(1L, hour(5), hour(5)));
+        verifyNoInteractions(itemService);
+    }
+
+    private static BookingInterval interval(long id, int startHour, int endHour) {
+        return new BookingInterval(id, hour(startHour), hour(endHour));
+    }
+
+    private static TimeSlotDto slot(int startHour, int endHour) {
+        return new TimeSlotDto(hour(startHour), hour(endHour));
+    }
+
+    private static LocalDateTime hour(int hour) {
+        return BASE.plusHours(hour);
+    }
+}
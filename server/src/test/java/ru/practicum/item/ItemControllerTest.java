@@ -11,8 +11,12 @@ import ru.practicum.booking.BookingService;
 import ru.practicum.booking.dto.BookingDto;
 import ru.practicum.item.dto.CommentDto;
 import ru.practicum.item.dto.ItemDto;
+import ru.practicum.item.dto.ItemMapper;
+import ru.practicum.item.dto.TimeSlotDto;
 import ru.practicum.item.model.Comment;
 import ru.practicum.item.model.Item;
+import ru.practicum.item.search.ItemNameSuggester;
+import ru.practicum.item.search.ItemSearchCache;
 import ru.practicum.request.model.ItemRequest;
 import ru.practicum.user.dto.UserDto;
 import ru.practicum.user.model.User;
@@ -24,6 +28,7 @@ import java.util.List;
 
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -39,6 +44,14 @@ class ItemControllerTest {
     CommentService commentService;
     @MockBean
     BookingService bookingService;
+    @MockBean
+    ItemDetailCache itemDetailCache;
+    @MockBean
+    ItemSearchCache itemSearchCache;
+    @MockBean
+    ItemNameSuggester itemNameSuggester;
+    @MockBean
+    ItemAvailabilityCache itemAvailabilityCache;
     @Autowired
     private MockMvc mvc;
 
@@ -131,7 +144,7 @@ class ItemControllerTest {
 
     @Test
     void getItems() throws Exception {
-        List<Item> items = List.of(item, itemForList);
+        List<ItemDto> items = ItemMapper.toItemDtoList(List.of(item, itemForList));
         when(itemService.getItems(anyLong(), anyInt(), anyInt())).thenReturn(items);
 
         mvc.perform(get("/items")
@@ -160,7 +173,7 @@ class ItemControllerTest {
 
     @Test
     void getItemDtoById() throws Exception {
-        when(itemService.getItemById(anyLong(), anyLong())).thenReturn(item);
+        when(itemDetailCache.getItemById(anyLong(), anyLong())).thenReturn(ItemMapper.toItemDto(item));
 
         mvc.perform(get("/items/{id}", ownerDto.getId())
                         .accept(MediaType.APPLICATION_JSON)
@@ -179,8 +192,8 @@ class ItemControllerTest {
 
     @Test
     void getSearchItem() throws Exception {
-        List<Item> items = List.of(createdItem, itemForList);
-        when(itemService.getItemsBySearch(anyString(), anyInt(), anyInt())).thenReturn(items);
+        List<ItemDto> items = ItemMapper.toItemDtoList(List.of(createdItem, itemForList));
+        when(itemSearchCache.search(anyString(), anyInt(), anyInt())).thenReturn(items);
 
         mvc.perform(get("/items/search")
                         .accept(MediaType.APPLICATION_JSON)
@@ -205,4 +218,49 @@ class ItemControllerTest {
                 .andExpect(jsonPath("$[1].comments", is(itemDtoForSearch.getComments())))
                 .andExpect(jsonPath("$[1].requestId", is(itemDtoForSearch.getRequestId()), Long.class));
     }
+
+    @Test
+    void getSuggestions() throws Exception {
+        when(itemNameSuggester.suggest("дре", 5)).thenReturn(List.of("Дрель", "Ударная дрель"));
+
+        mvc.perform(get("/items/suggest")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .queryParam("prefix", "дре")
+                        .queryParam("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0]", is("Дрель")))
+                .andExpect(jsonPath("$[1]", is("Ударная дрель")));
+    }
+
+    @Test
+    void getAvailability() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 10, 0);
+        LocalDateTime to = LocalDateTime.of(2030, 1, 3, 10, 0);
+        when(itemAvailabilityCache.getAvailability(1L, from, to))
+                .thenReturn(List.of(new TimeSlotDto(from, from.plusDays(1))));
+
+        mvc.perform(get("/items/1/availability")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .queryParam("from", "2030-01-01T10:00:00")
+                        .queryParam("to", "2030-01-03T10:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].start", is("2030-01-01T10:00:00")))
+                .andExpect(jsonPath("$[0].end", is("2030-01-02T10:00:00")));
+    }
+
+    @Test
+    void getSearchItem_whenWindowGiven_thenFreeItemsSearchedWithoutCache() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        when(itemService.getItemsBySearch("дрель", start, start.plusDays(2), 0, 10))
+                .thenReturn(List.of(createdItemDto));
+
+        mvc.perform(get("/items/search")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .queryParam("text", "дрель")
+                        .queryParam("start", "2030-01-01T10:00:00")
+                        .queryParam("end", "2030-01-03T10:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", is(createdItemDto.getId()), Long.class));
+        verifyNoInteractions(itemSearchCache);
+    }
 }
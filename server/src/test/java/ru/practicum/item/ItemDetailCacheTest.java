@@ -0,0 +1,115 @@
+package ru.practicum.item;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.booking.model.Booking;
+import ru.practicum.item.dto.ItemDto;
+import ru.practicum.item.dto.ItemMapper;
+import ru.practicum.item.model.Item;
+import ru.practicum.user.model.User;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ItemDetailCacheTest {
+    @Mock
+    private ItemService itemService;
+    private SimpleMeterRegistry meterRegistry;
+    private ItemDetailCache itemDetailCache;
+
+    private final User owner = new User(0L, "Иван Иванов", "ivai@ivanov.ru");
+    private final Item item = new Item(1L, "дрель", "питание от сети",
+            true, owner, null, null, null, null);
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        itemDetailCache = new ItemDetailCache(itemService, meterRegistry, 100, Duration.ofMinutes(10));
+    }
+
+    @Test
+    void getItemById_whenRequestedTwice_thenLoadedOnce() {
+        when(itemService.getItemById(2L, item.getId())).thenReturn(item);
+
+        itemDetailCache.getItemById(2L, item.getId());
+        ItemDto actualItem = itemDetailCache.getItemById(3L, item.getId());
+
+        assertEquals(ItemMapper.toItemDto(item), actualItem);
+        verify(itemService, times(1)).getItemById(anyLong(), anyLong());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "itemDetails")
+                .tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void getItemById_whenOwnerAndOtherUser_thenCachedSeparately() {
+        when(itemService.getItemById(2L, item.getId())).thenReturn(item);
+        when(itemService.getItemById(owner.getId(), item.getId())).thenReturn(item);
+
+        itemDetailCache.getItemById(2L, item.getId());
+        itemDetailCache.getItemById(owner.getId(), item.getId());
+        itemDetailCache.getItemById(owner.getId(), item.getId());
+        itemDetailCache.getItemById(2L, item.getId());
+
+        verify(itemService, times(1)).getItemById(2L, item.getId());
+        verify(itemService, times(1)).getItemById(owner.getId(), item.getId());
+    }
+
+    @Test
+    void getItemById_whenItemChanged_thenReloaded() {
+        when(itemService.getItemById(2L, item.getId())).thenReturn(item);
+
+        itemDetailCache.getItemById(2L, item.getId());
+        itemDetailCache.onItemChanged(new ItemChangedEvent(item.getId()));
+        itemDetailCache.getItemById(2L, item.getId());
+
+        verify(itemService, times(2)).getItemById(2L, item.getId());
+    }
+
+    @Test
+    void getItemById_whenItemChangedDuringLoad_thenNotCached() {
+        when(itemService.getItemById(2L, item.getId())).thenAnswer(invocation -> {
+            itemDetailCache.onItemChanged(new ItemChangedEvent(item.getId()));
+            return item;
+        });
+
+        itemDetailCache.getItemById(2L, item.getId());
+        itemDetailCache.getItemById(2L, item.getId());
+
+        verify(itemService, times(2)).getItemById(2L, item.getId());
+    }
+
+    @Test
+    void getItemById_whenOtherItemChangedDuringLoad_thenCached() {
+        when(itemService.getItemById(2L, item.getId())).thenAnswer(invocation -> {
+            itemDetailCache.onItemChanged(new ItemChangedEvent(item.getId() + 1));
+            return item;
+        });
+
+        itemDetailCache.getItemById(2L, item.getId());
+        itemDetailCache.getItemById(2L, item.getId());
+
+        verify(itemService, times(1)).getItemById(2L, item.getId());
+    }
+
+    @Test
+    void getItemById_whenNextBookingStarted_thenOwnerViewReloaded() {
+        Booking next = new Booking(5L, LocalDateTime.now().minusSeconds(1), LocalDateTime.now().plusDays(1),
+                item, new User(2L, "Петр Петров", "petr@petrov.ru"), null);
+        Item ownerView = new Item(1L, "дрель", "питание от сети",
+                true, owner, next, null, null, null);
+        when(itemService.getItemById(owner.getId(), item.getId())).thenReturn(ownerView);
+
+        itemDetailCache.getItemById(owner.getId(), item.getId());
+        itemDetailCache.getItemById(owner.getId(), item.getId());
+
+        verify(itemService, times(2)).getItemById(owner.getId(), item.getId());
+    }
+}
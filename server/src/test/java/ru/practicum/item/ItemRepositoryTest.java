@@ -8,11 +8,15 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import ru.practicum.item.dto.ItemDto;
+import ru.practicum.item.dto.ItemMapper;
 import ru.practicum.item.model.Item;
 import ru.practicum.user.UserRepository;
 import ru.practicum.user.model.User;
 
+import javax.persistence.LockModeType;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -44,10 +48,24 @@ class ItemRepositoryTest {
         firstItem = itemRepository.save(firstItem);
         secondItem = itemRepository.save(secondItem);
 
-        List<Item> expectedItems = List.of(firstItem, secondItem);
+        List<ItemDto> expectedItems = ItemMapper.toItemDtoList(List.of(firstItem, secondItem));
         Pageable pageable = PageRequest.of(0, 20);
 
-        Page<Item> actualItem = itemRepository.findAllBySearch("дрель", pageable);
+        Page<ItemDto> actualItem = itemRepository.findAllBySearch("дрель", pageable);
         assertEquals(expectedItems, actualItem.getContent());
     }
+
+    @Test
+    void lockById_whenItemExists_thenItemLockedForTransaction() {
+        User owner = userRepository.save(new User(null, "Иван Иванов", "ivai@ivanov.ru"));
+        Item item = itemRepository.save(new Item(null, "дрель", "питание от сети",
+                true, owner, null, null, null, null));
+        em.flush();
+        em.clear();
+
+        assertEquals(item.getId(), itemRepository.lockById(item.getId()).orElseThrow().getId());
+        assertEquals(LockModeType.PESSIMISTIC_WRITE,
+                em.getEntityManager().getLockMode(itemRepository.getReferenceById(item.getId())));
+        assertEquals(Optional.empty(), itemRepository.lockById(-1L));
+    }
 }
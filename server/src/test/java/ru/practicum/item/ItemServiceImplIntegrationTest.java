@@ -6,15 +6,29 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.booking.BookingRepository;
+import ru.practicum.booking.BookingServiceImpl;
+import ru.practicum.booking.BookingStatus;
+import ru.practicum.booking.dto.BookingMapper;
+import ru.practicum.booking.model.Booking;
 import ru.practicum.exception.UserNotFoundException;
+import ru.practicum.item.dto.CommentMapper;
+import ru.practicum.item.dto.ItemDto;
+import ru.practicum.item.dto.ItemMapper;
+import ru.practicum.item.model.Comment;
 import ru.practicum.item.model.Item;
+import ru.practicum.item.model.ItemView;
+import ru.practicum.pagination.CursorPage;
 import ru.practicum.user.UserRepository;
 import ru.practicum.user.model.User;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @Transactional
 @TestPropertySource(locations = "classpath:application-test.properties")
@@ -26,7 +40,17 @@ public class ItemServiceImplIntegrationTest {
     @Autowired
     private UserRepository userRepository;
     @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private ItemViewRepository itemViewRepository;
+    @Autowired
+    private BookingServiceImpl bookingService;
+    @Autowired
     private ItemServiceImpl itemService;
+    @Autowired
+    private ItemViewService itemViewService;
 
     @Test
     public void getItems_whenUserIsFound_thenItemsReturn() {
@@ -40,12 +64,153 @@ public class ItemServiceImplIntegrationTest {
         firstIem = itemRepository.save(firstIem);
         secondItem = itemRepository.save(secondItem);
 
-        List<Item> expectedItems = List.of(firstIem, secondItem);
-        List<Item> actualItems = itemService.getItems(owner.getId(), 1, 10);
+        List<ItemDto> expectedItems = ItemMapper.toItemDtoList(List.of(firstIem, secondItem));
+        expectedItems.forEach(item -> item.setComments(List.of()));
+        List<ItemDto> actualItems = itemService.getItems(owner.getId(), 1, 10);
 
         assertEquals(expectedItems, actualItems);
     }
 
+    @Test
+    public void getItems_whenPagedByCursor_thenPagesFollowInIdOrder() {
+        User owner = userRepository.save(new User(null, "Иван Иванов", "ivai@ivanov.ru"));
+        Item firstItem = itemRepository.save(new Item(null, "дрель", "питание от сети",
+                true, owner, null, null, null, null));
+        Item secondItem = itemRepository.save(new Item(null, "гитара", "есть чехол и каподастр",
+                true, owner, null, null, null, null));
+        Item thirdItem = itemRepository.save(new Item(null, "стремянка", "высота 2 метра",
+                true, owner, null, null, null, null));
+
+        CursorPage<ItemDto> firstPage = itemService.getItems(owner.getId(), "", 2);
+        CursorPage<ItemDto> secondPage = itemService.getItems(owner.getId(), firstPage.getNext(), 2);
+
+        assertEquals(List.of(firstItem.getId(), secondItem.getId()), List.of(firstPage.getContent().get(0).getId(),
+                firstPage.getContent().get(1).getId()));
+        assertEquals(List.of(), firstPage.getContent().get(0).getComments());
+        assertEquals(1, secondPage.getContent().size());
+        assertEquals(thirdItem.getId(), secondPage.getContent().get(0).getId());
+        assertNull(secondPage.getNext());
+    }
+
+    @Test
+    public void getItems_whenItemsHaveBookingsAndComments_thenTheyAreAttachedToEachItem() {
+        User owner = userRepository.save(new User(null, "Иван Иванов", "ivai@ivanov.ru"));
+        User booker = userRepository.save(new User(null, "Петр Петров", "petr@petrov.ru"));
+        Item firstItem = itemRepository.save(new Item(null, "дрель", "питание от сети",
+                true, owner, null, null, null, null));
+        Item secondItem = itemRepository.save(new Item(null, "гитара", "есть чехол и каподастр",
+                true, owner, null, null, null, null));
+
+        LocalDateTime now = LocalDateTime.now();
+        Booking last = bookingRepository.save(new Booking(null, now.minusDays(3), now.minusDays(2),
+                firstItem, booker, BookingStatus.APPROVED));
+        Booking next = bookingRepository.save(new Booking(null, now.plusDays(2), now.plusDays(3),
+                firstItem, booker, BookingStatus.APPROVED));
+        bookingRepository.save(new Booking(null, now.plusDays(1), now.plusDays(2),
+                firstItem, booker, BookingStatus.REJECTED));
+        Comment comment = commentRepository.save(new Comment(null, "отличная дрель", firstItem, booker, now));
+
+        List<ItemDto> actualItems = itemService.getItems(owner.getId(), 0, 10);
+
+        assertEquals(2, actualItems.size());
+        assertEquals(BookingMapper.toBookingDto(last, false), actualItems.get(0).getLastBooking());
+        assertEquals(BookingMapper.toBookingDto(next, false), actualItems.get(0).getNextBooking());
+        assertEquals(List.of(CommentMapper.toCommentDto(comment, false)), actualItems.get(0).getComments());
+        assertNull(actualItems.get(1).getLastBooking());
+        assertNull(actualItems.get(1).getNextBooking());
+        assertEquals(List.of(), actualItems.get(1).getComments());
+    }
+
+    @Test
+    public void getItemById_whenBookingApproved_thenItemViewRefreshed() {
+        User owner = userRepository.save(new User(null, "Иван Иванов", "ivai@ivanov.ru"));
+        User booker = userRepository.save(new User(null, "Петр Петров", "petr@petrov.ru"));
+        Item item = itemService.create(owner.getId(), null, new Item(null, "дрель", "питание от сети",
+                true, null, null, null, null, null));
+        LocalDateTime now = LocalDateTime.now();
+        Booking booking = bookingRepository.save(new Booking(null, now.plusDays(1), now.plusDays(2),
+                item, booker, BookingStatus.WAITING));
+
+        assertNull(itemViewRepository.findById(item.getId()).orElseThrow().getNextBooking());
+
+        bookingService.update(booking.getId(), true, owner.getId());
+
+        ItemView view = itemViewRepository.findById(item.getId()).orElseThrow();
+        assertEquals(booking.getId(), view.getNextBooking().getId());
+        assertEquals(booking.getStart(), view.getValidUntil());
+        assertEquals(booking.getId(), itemService.getItemById(owner.getId(), item.getId()).getNextBooking().getId());
+        assertNull(itemService.getItemById(booker.getId(), item.getId()).getNextBooking());
+    }
+
+    @Test
+    public void getItemById_whenItemViewIsStale_thenRebuiltWithoutWriting() {
+        User owner = userRepository.save(new User(null, "Иван Иванов", "ivai@ivanov.ru"));
+        User booker = userRepository.save(new User(null, "Петр Петров", "petr@petrov.ru"));
+        Item item = itemRepository.save(new Item(null, "дрель", "питание от сети",
+                true, owner, null, null, null, null));
+        LocalDateTime now = LocalDateTime.now();
+        Booking last = bookingRepository.save(new Booking(null, now.minusDays(3), now.minusDays(2),
+                item, booker, BookingStatus.APPROVED));
+        Comment comment = commentRepository.save(new Comment(null, "отличная дрель", item, booker, now));
+        itemViewRepository.save(new ItemView(null, item, null, null, 0, now.minusMinutes(1)));
+
+        Item actualItem = itemService.getItemById(owner.getId(), item.getId());
+
+        assertEquals(last.getId(), actualItem.getLastBooking().getId());
+        assertNull(actualItem.getNextBooking());
+        assertEquals(List.of(comment), actualItem.getComments());
+        ItemView view = itemViewRepository.findById(item.getId()).orElseThrow();
+        assertEquals(0, view.getCommentsCount());
+        assertEquals(now.minusMinutes(1), view.getValidUntil());
+    }
+
+    @Test
+    public void getItemById_whenItemViewIsMissing_thenBuiltWithoutInsert() {
+        User owner = userRepository.save(new User(null, "Иван Иванов", "ivai@ivanov.ru"));
+        User booker = userRepository.save(new User(null, "Петр Петров", "petr@petrov.ru"));
+        Item item = itemRepository.save(new Item(null, "дрель", "питание от сети",
+                true, owner, null, null, null, null));
+        LocalDateTime now = LocalDateTime.now();
+        Booking next = bookingRepository.save(new Booking(null, now.plusDays(1), now.plusDays(2),
+                item, booker, BookingStatus.APPROVED));
+
+        Item actualItem = itemService.getItemById(owner.getId(), item.getId());
+
+        assertEquals(next.getId(), actualItem.getNextBooking().getId());
+        assertTrue(itemViewRepository.findById(item.getId()).isEmpty());
+    }
+
+    @Test
+    public void refreshStale_whenNextBookingStarted_thenItemViewMovedOn() {
+        User owner = userRepository.save(new User(null, "Иван Иванов", "ivai@ivanov.ru"));
+        User booker = userRepository.save(new User(null, "Петр Петров", "petr@petrov.ru"));
+        Item item = itemService.create(owner.getId(), null, new Item(null, "дрель", "питание от сети",
+                true, null, null, null, null, null));
+        Item other = itemService.create(owner.getId(), null, new Item(null, "пила", "ручная",
+                true, null, null, null, null, null));
+        LocalDateTime now = LocalDateTime.now();
+        Booking first = bookingRepository.save(new Booking(null, now.plusDays(1), now.plusDays(2),
+                item, booker, BookingStatus.WAITING));
+        Booking second = bookingRepository.save(new Booking(null, now.plusDays(3), now.plusDays(4),
+                item, booker, BookingStatus.WAITING));
+        Booking later = bookingRepository.save(new Booking(null, now.plusDays(10), now.plusDays(11),
+                other, booker, BookingStatus.WAITING));
+        bookingService.update(first.getId(), true, owner.getId());
+        bookingService.update(second.getId(), true, owner.getId());
+        bookingService.update(later.getId(), true, owner.getId());
+
+        //время ушло за начало первого бронирования: карточка вещи устарела, карточка другой вещи - нет
+        LocalDateTime afterFirstStart = first.getStart().plusHours(1);
+        assertEquals(1, itemViewService.refreshStale(afterFirstStart, 10));
+
+        ItemView view = itemViewRepository.findById(item.getId()).orElseThrow();
+        assertEquals(first.getId(), view.getLastBooking().getId());
+        assertEquals(second.getId(), view.getNextBooking().getId());
+        assertEquals(second.getStart(), view.getValidUntil());
+        assertEquals(later.getStart(), itemViewRepository.findById(other.getId()).orElseThrow().getValidUntil());
+        assertEquals(0, itemViewService.refreshStale(afterFirstStart, 10));
+    }
+
     @Test
     public void getItems_whenUserIsNotFound_thenUserNotFoundException() {
         User owner = new User(null, "Иван Иванов", "ivai@ivanov.ru");
@@ -66,8 +231,8 @@ public class ItemServiceImplIntegrationTest {
         firstIem = itemRepository.save(firstIem);
         secondItem = itemRepository.save(secondItem);
 
-        List<Item> expectedItems = List.of(firstIem, secondItem);
-        List<Item> actualItems = itemService.getItemsBySearch("дрель", 1, 10);
+        List<ItemDto> expectedItems = ItemMapper.toItemDtoList(List.of(firstIem, secondItem));
+        List<ItemDto> actualItems = itemService.getItemsBySearch("дрель", 1, 10);
 
         assertEquals(expectedItems, actualItems);
     }
@@ -7,23 +7,30 @@ import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import ru.practicum.booking.BookingServiceImpl;
+import ru.practicum.booking.BookingStatus;
+import ru.practicum.booking.dto.BookingMapper;
 import ru.practicum.booking.model.Booking;
 import ru.practicum.exception.ItemAlreadyExistException;
 import ru.practicum.exception.ItemNotFoundException;
 import ru.practicum.exception.ItemValidationException;
+import ru.practicum.item.dto.ItemDto;
+import ru.practicum.item.dto.ItemMapper;
 import ru.practicum.item.model.Comment;
 import ru.practicum.item.model.Item;
+import ru.practicum.item.model.ItemView;
+import ru.practicum.item.search.ItemSearchEngine;
 import ru.practicum.user.UserRepository;
 import ru.practicum.user.model.User;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -39,6 +46,12 @@ class ItemServiceImplTest {
     private BookingServiceImpl bookingService;
     @Mock
     private CommentServiceImpl commentService;
+    @Mock
+    private ItemViewService itemViewService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private ItemSearchEngine itemSearchEngine;
     @InjectMocks
     private ItemServiceImpl itemService;
     @Captor
@@ -47,7 +60,8 @@ class ItemServiceImplTest {
     @Test
     void create_whenItemValid_thenSavedItem() {
         User user = new User(0L, "Иван Иванов", "ivai@ivanov.ru");
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userRepository.existsById(user.getId())).thenReturn(true);
+        when(userRepository.getReferenceById(user.getId())).thenReturn(user);
 
         Item savedItem = new Item(0L, "дрель", "дрель аккумуляторная",
                 true, user, null, null, null, null);
@@ -95,7 +109,7 @@ class ItemServiceImplTest {
     @Test
     void update_whenItemFound_thenUpdatedOnlyAvailableFields() {
         User user = new User(0L, "Иван Иванов", "ivai@ivanov.ru");
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userRepository.existsById(user.getId())).thenReturn(true);
 
         Long itemId = 0L;
         Item oldItem = new Item();
@@ -129,7 +143,7 @@ class ItemServiceImplTest {
     @Test
     void update_whenItemNameNotValid_thenItemValidationException() {
         User user = new User(0L, "Иван Иванов", "ivai@ivanov.ru");
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userRepository.existsById(user.getId())).thenReturn(true);
 
         Item savedItem = new Item(0L, "", "дрель аккумуляторная",
                 true, user, null, null, null, null);
@@ -142,7 +156,7 @@ class ItemServiceImplTest {
     @Test
     void update_whenItemDescriptionNotValid_thenItemValidationException() {
         User user = new User(0L, "Иван Иванов", "ivai@ivanov.ru");
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userRepository.existsById(user.getId())).thenReturn(true);
 
         Item savedItem = new Item(0L, "дрель", "",
                 true, user, null, null, null, null);
@@ -156,7 +170,7 @@ class ItemServiceImplTest {
     void update_whenItemOwnerNotValid_thenItemAlreadyExistException() {
         User trueUser = new User(0L, "Иван Иванов", "ivai@ivanov.ru");
         User folseUser = new User(1L, "Петр Петров", "petr@petrov.ru");
-        when(userRepository.findById(folseUser.getId())).thenReturn(Optional.of(folseUser));
+        when(userRepository.existsById(folseUser.getId())).thenReturn(true);
 
         Item savedItem = new Item(0L, "дрель", "дрель аккумуляторная",
                 true, trueUser, null, null, null, null);
@@ -170,28 +184,45 @@ class ItemServiceImplTest {
     void getItemById_whenItemFound_thenReturnedItem() {
         User user = new User(0L, "Иван Иванов", "ivai@ivanov.ru");
 
-        List<Comment> comments = new ArrayList<>();
+        List<Comment> comments = List.of(new Comment());
 
         Booking last = new Booking();
         Booking next = new Booking();
 
         Item expectedItem = new Item(0L, "дрель", "дрель аккумуляторная",
                 true, user, next, last, comments, null);
-        when(commentService.getComments(expectedItem.getId())).thenReturn(comments);
-        when(bookingService.getNext(expectedItem.getId())).thenReturn(next);
-        when(bookingService.getLast(expectedItem.getId())).thenReturn(last);
-        when(itemRepository.findById(expectedItem.getId())).thenReturn(Optional.of(expectedItem));
+        Item viewItem = new Item(0L, "дрель", "дрель аккумуляторная",
+                true, user, null, null, null, null);
+        when(itemViewService.getItemView(expectedItem.getId()))
+                .thenReturn(new ItemView(viewItem.getId(), viewItem, last, next, 1, null));
+        when(commentService.getCommentsByItems(List.of(expectedItem.getId()))).thenReturn(comments);
 
         Item actualItem = itemService.getItemById(user.getId(), expectedItem.getId());
 
         assertEquals(expectedItem, actualItem);
     }
 
+    @Test
+    void getItemById_whenNoCommentsAndNotOwner_thenCommentsNotLoadedAndBookingsHidden() {
+        User user = new User(0L, "Иван Иванов", "ivai@ivanov.ru");
+        Item viewItem = new Item(0L, "дрель", "дрель аккумуляторная",
+                true, user, null, null, null, null);
+        when(itemViewService.getItemView(viewItem.getId()))
+                .thenReturn(new ItemView(viewItem.getId(), viewItem, new Booking(), new Booking(), 0, null));
+
+        Item actualItem = itemService.getItemById(1L, viewItem.getId());
+
+        assertTrue(actualItem.getComments().isEmpty());
+        assertNull(actualItem.getLastBooking());
+        assertNull(actualItem.getNextBooking());
+        verify(commentService, never()).getCommentsByItems(anyList());
+    }
+
     @Test
     void getItemById_whenItemNotFound_thenItemNotFoundException() {
         long userId = 0L;
         long id = 0L;
-        when(itemRepository.findById(id)).thenReturn(Optional.empty());
+        when(itemViewService.getItemView(id)).thenThrow(new ItemNotFoundException("item не найден"));
 
         assertThrows(ItemNotFoundException.class, () -> itemService.getItemById(userId, id));
     }
@@ -199,7 +230,7 @@ class ItemServiceImplTest {
     @Test
     void getItems_whenUserValid_thenReturnedItems() {
         User user = new User(0L, "Иван Иванов", "ivai@ivanov.ru");
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userRepository.existsById(user.getId())).thenReturn(true);
 
         List<Comment> comment = new ArrayList<>();
 
@@ -208,20 +239,52 @@ class ItemServiceImplTest {
         Item secondItem = new Item(1L, "набор отверток", "отвертки под разные шлицы",
                 true, user, null, null, comment, null);
 
-        List<Item> expectedItems = new ArrayList<>();
-        expectedItems.add(fistItem);
-        expectedItems.add(secondItem);
+        List<ItemDto> expectedItems = ItemMapper.toItemDtoList(List.of(fistItem, secondItem));
 
         Sort sortById = Sort.by(Sort.Direction.ASC, "id");
         Pageable pageable = PageRequest.of(0, 10, sortById);
 
-        when(commentService.getComments(fistItem.getId())).thenReturn(comment);
-        when(commentService.getComments(secondItem.getId())).thenReturn(comment);
-        when(itemRepository.findByOwner(user, pageable)).thenReturn(new PageImpl<>(expectedItems));
+        when(commentService.getCommentsByItems(List.of(fistItem.getId(), secondItem.getId()))).thenReturn(comment);
+        when(bookingService.getLastByItems(List.of(fistItem.getId(), secondItem.getId()))).thenReturn(List.of());
+        when(bookingService.getNextByItems(List.of(fistItem.getId(), secondItem.getId()))).thenReturn(List.of());
+        when(itemRepository.findByOwnerId(user.getId(), pageable)).thenReturn(new PageImpl<>(expectedItems));
 
-        List<Item> actualItems = itemService.getItems(user.getId(), 1, 10);
+        List<ItemDto> actualItems = itemService.getItems(user.getId(), 1, 10);
 
         assertEquals(expectedItems, actualItems);
+        verify(commentService, never()).getComments(anyLong());
+        verify(bookingService, never()).getLast(anyLong());
+        verify(bookingService, never()).getNext(anyLong());
+    }
+
+    @Test
+    void getItems_whenBookingsFound_thenLastAndNextSetFromBatch() {
+        User owner = new User(0L, "Иван Иванов", "ivai@ivanov.ru");
+        User booker = new User(1L, "Петр Петров", "petr@petrov.ru");
+        when(userRepository.existsById(owner.getId())).thenReturn(true);
+
+        Item firstItem = new Item(0L, "дрель", "дрель аккумуляторная",
+                true, owner, null, null, null, null);
+        Item secondItem = new Item(1L, "набор отверток", "отвертки под разные шлицы",
+                true, owner, null, null, null, null);
+        when(itemRepository.findByOwnerId(owner.getId(), PageRequest.of(0, 10, Sort.by(Sort.Direction.ASC, "id"))))
+                .thenReturn(new PageImpl<>(ItemMapper.toItemDtoList(List.of(firstItem, secondItem))));
+
+        LocalDateTime now = LocalDateTime.now();
+        Booking last = new Booking(1L, now.minusDays(3), now.minusDays(2), firstItem, booker, BookingStatus.APPROVED);
+        Booking next = new Booking(2L, now.plusDays(1), now.plusDays(2), secondItem, booker, BookingStatus.APPROVED);
+        List<Long> itemIds = List.of(firstItem.getId(), secondItem.getId());
+        when(commentService.getCommentsByItems(itemIds)).thenReturn(List.of());
+        when(bookingService.getLastByItems(itemIds)).thenReturn(List.of(last));
+        when(bookingService.getNextByItems(itemIds)).thenReturn(List.of(next));
+
+        List<ItemDto> actualItems = itemService.getItems(owner.getId(), 0, 10);
+
+        assertEquals(BookingMapper.toBookingDto(last, false), actualItems.get(0).getLastBooking());
+        assertNull(actualItems.get(0).getNextBooking());
+        assertNull(actualItems.get(1).getLastBooking());
+        assertEquals(BookingMapper.toBookingDto(next, false), actualItems.get(1).getNextBooking());
+        assertEquals(List.of(), actualItems.get(0).getComments());
     }
 
     @Test
@@ -259,4 +322,25 @@ class ItemServiceImplTest {
         itemRepository.deleteById(deletedItem.getId());
         assertNull(itemRepository.getItemById(deletedItem.getId()));
     }
+
+    @Test
+    void getItemsBySearch_whenWindowGiven_thenOnlyFreeItemsSearched() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        List<ItemDto> free = List.of(new ItemDto(1L, "дрель", "питание от сети", true, 0L, null));
+        when(itemSearchEngine.searchFree("дрель", start, start.plusDays(2), 0, 10)).thenReturn(free);
+
+        assertEquals(free, itemService.getItemsBySearch("дрель", start, start.plusDays(2), 0, 10));
+        verify(itemSearchEngine, never()).search(anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    void getItemsBySearch_whenWindowIncomplete_thenItemValidationException() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+
+        assertThrows(ItemValidationException.class,
+                () -> itemService.getItemsBySearch("дрель", start, null, 0, 10));
+        assertThrows(ItemValidationException.class,
+                () -> itemService.getItemsBySearch("дрель", start, start, 0, 10));
+        verifyNoInteractions(itemSearchEngine);
+    }
 }
@@ -0,0 +1,101 @@
+package ru.practicum.item.search;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.practicum.item.dto.ItemDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//запросы движка на настоящем PostgreSQL со схемой из миграций: to_tsquery, стемминг, ts_rank и окно занятости.
+//Без Docker тест пропускается
+@Testcontainers(disabledWithoutDocker = true)
+class FullTextItemSearchEngineSqlTest {
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:14");
+
+    private static final LocalDateTime START = LocalDateTime.of(2030, 5, 1, 10, 0);
+    private static final LocalDateTime END = START.plusDays(2);
+
+    private static JdbcTemplate jdbcTemplate;
+    private static FullTextItemSearchEngine engine;
+    private static long drill;
+    private static long perforator;
+
+    @BeforeAll
+    static void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(POSTGRES.getJdbcUrl(),
+                POSTGRES.getUsername(), POSTGRES.getPassword());
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/common", "classpath:db/migration/postgresql")
+                .load()
+                .migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        engine = new FullTextItemSearchEngine(new NamedParameterJdbcTemplate(dataSource));
+
+        long owner = insert("insert into users (name, email) values ('Иван Иванов', 'ivai@ivanov.ru') returning id");
+        long booker = insert("insert into users (name, email) values ('Петр Петров', 'petr@petrov.ru') returning id");
+        drill = insertItem("Дрель", "аккумуляторная, два аккумулятора", true, owner);
+        perforator = insertItem("Перфоратор", "ударная дрель по бетону", true, owner);
+        insertItem("Дрель старая", "сетевая", false, owner);
+        insertItem("Стремянка", "высота 2 метра", true, owner);
+        jdbcTemplate.update("insert into bookings (start, end_date, item_id, booker_id, status) values (?, ?, ?, ?, 1)",
+                START.plusHours(1), END.minusHours(1), drill, booker);
+    }
+
+    @Test
+    void search_whenWordPrefixGiven_thenStemmedMatchesOrderedByRank() {
+        //совпадение в названии весит больше совпадения в описании, недоступная вещь не выдается
+        assertEquals(List.of(drill, perforator), ids(engine.search("дрел", 0, 10)));
+        assertEquals(List.of(drill, perforator), ids(engine.search("Дрели", 0, 10)));
+    }
+
+    @Test
+    void search_whenSeveralWords_thenEveryWordRequired() {
+        assertEquals(List.of(perforator), ids(engine.search("дрель бетон", 0, 10)));
+        assertEquals(List.of(), ids(engine.search("дрель стремянка", 0, 10)));
+    }
+
+    @Test
+    void search_whenSecondPageRequested_thenContinuesByRank() {
+        assertEquals(List.of(perforator), ids(engine.search("дрел", 1, 1)));
+    }
+
+    @Test
+    void search_whenOperatorsGiven_thenQueryStillValid() {
+        assertEquals(List.of(drill, perforator), ids(engine.search("дрель | !(", 0, 10)));
+    }
+
+    @Test
+    void searchFree_whenItemBookedInWindow_thenExcluded() {
+        assertEquals(List.of(perforator), ids(engine.searchFree("дрель", START, END, 0, 10)));
+        assertEquals(List.of(drill, perforator), ids(engine.searchFree("дрель", END, END.plusDays(1), 0, 10)));
+    }
+
+    private static long insertItem(String name, String description, boolean available, long owner) {
+        return insert("insert into items (name, description, available, owner_id) values ('" + name + "', '" +
+                description + "', " + available + ", " + owner + ") returning id");
+    }
+
+    //id выдает значение по умолчанию колонки - та же последовательность, что и у Hibernate
+    private static long insert(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+
+    private static List<Long> ids(List<ItemDto> items) {
+        return items.stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList());
+    }
+}
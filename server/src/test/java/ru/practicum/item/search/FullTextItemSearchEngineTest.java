@@ -0,0 +1,24 @@
+package ru.practicum.item.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FullTextItemSearchEngineTest {
+
+    @Test
+    void toPrefixQuery_whenSeveralWords_thenEveryWordIsPrefix() {
+        assertEquals("аккумуляторная:* & дрел:*",
+                FullTextItemSearchEngine.toPrefixQuery("Аккумуляторная дрел").toLowerCase());
+    }
+
+    @Test
+    void toPrefixQuery_whenTsQueryOperatorsGiven_thenTheyAreDropped() {
+        assertEquals("дрель:* & 2:*", FullTextItemSearchEngine.toPrefixQuery("дрель | !2 & ("));
+    }
+
+    @Test
+    void toPrefixQuery_whenNoWords_thenEmpty() {
+        assertEquals("", FullTextItemSearchEngine.toPrefixQuery(" &|! "));
+    }
+}
@@ -0,0 +1,141 @@
+package ru.practicum.item.search;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import ru.practicum.booking.BookingRepository;
+import ru.practicum.booking.BookingStatus;
+import ru.practicum.booking.model.Booking;
+import ru.practicum.item.ItemRepository;
+import ru.practicum.item.dto.ItemDto;
+import ru.practicum.item.model.Item;
+import ru.practicum.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+class InMemoryItemSearchEngineTest {
+    @Autowired
+    private TestEntityManager em;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private InMemoryItemSearchEngine searchEngine;
+    private User owner;
+    private Item drill;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        searchEngine = new InMemoryItemSearchEngine(itemRepository, bookingRepository, meterRegistry);
+        owner = em.persist(new User(null, "Иван Иванов", "ivai@ivanov.ru"));
+        drill = save("Дрель", "питание от сети", true);
+        save("аккумуляторная ДРЕЛЬ", "два аккумулятора и зарядник", true);
+        save("Отвёртка", "для мелкого ремонта, похожа на дрель", true);
+        save("Перфоратор Bosch", "18V, без аккумулятора", true);
+        save("дрель-миксер", "сломана", false);
+        save("Стремянка", "высота 2 метра", true);
+        save("bOsCh GSR", "шуруповёрт 18v", true);
+        em.flush();
+        searchEngine.rebuild();
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "дрел, 0, 10",
+            "ДрЕлЬ, 0, 10",
+            "рель, 0, 2",
+            "рель, 2, 2",
+            "bosch, 0, 10",
+            "18v, 0, 10",
+            "аккумулятор, 0, 1",
+            "аккумулятор, 1, 1",
+            "ё, 0, 10",
+            "а, 0, 3",
+            "а, 3, 3",
+            "а, 6, 3",
+            "сломана, 0, 10",
+            "молоток, 0, 10",
+            "' ', 0, 10"
+    })
+    void search_whenComparedWithSubstringQuery_thenSameItemsOnEveryPage(String text, int from, int size) {
+        List<ItemDto> expected = itemRepository.findAllBySearch(text,
+                PageRequest.of(from / size, size, Sort.by("id"))).getContent();
+
+        assertEquals(expected, searchEngine.search(text, from, size));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "рель, 0, 10",
+            "рель, 0, 1",
+            "рель, 1, 1",
+            "а, 2, 2",
+            "молоток, 0, 10"
+    })
+    void searchFree_whenComparedWithAntiJoinQuery_thenSameItemsOnEveryPage(String text, int from, int size) {
+        LocalDateTime start = LocalDateTime.of(2030, 6, 1, 12, 0);
+        User booker = em.persist(new User(null, "Петр Петров", "petr@petrov.ru"));
+        em.persist(new Booking(null, start.minusDays(1), start.plusDays(1), drill, booker, BookingStatus.APPROVED));
+        em.flush();
+        List<ItemDto> expected = itemRepository.findAllFreeBySearch(text, BookingRepository.OCCUPYING, start,
+                start.plusDays(2), PageRequest.of(from / size, size, Sort.by("id"))).getContent();
+
+        assertEquals(expected, searchEngine.searchFree(text, start, start.plusDays(2), from, size));
+    }
+
+    @Test
+    void reindex_whenItemChanged_thenIndexFollowsDatabase() {
+        drill.setName("Молоток");
+        drill.setDescription("кованый");
+        em.flush();
+        searchEngine.reindex(drill.getId());
+
+        assertEquals(List.of(drill.getId()), ids(searchEngine.search("молот", 0, 10)));
+        assertEquals(List.of(), ids(searchEngine.search("сети", 0, 10)));
+
+        drill.setAvailable(false);
+        em.flush();
+        searchEngine.reindex(drill.getId());
+
+        assertEquals(List.of(), searchEngine.search("молот", 0, 10));
+        assertEquals(2.0, meterRegistry.get("items.search.index.updates").counter().count());
+    }
+
+    @Test
+    void rebuild_whenIndexMissedChanges_thenDriftReported() {
+        Item hammer = save("Молоток", "кованый", true);
+        em.remove(drill);
+        em.flush();
+
+        ItemSearchIndexStats stats = searchEngine.rebuild();
+
+        assertEquals(2, stats.getDrift());
+        assertEquals(6, stats.getDocuments());
+        assertEquals(2.0, meterRegistry.get("items.search.index.drift").gauge().value());
+        assertEquals(List.of(hammer.getId()), ids(searchEngine.search("молот", 0, 10)));
+        assertEquals(List.of(), searchEngine.search("сети", 0, 10));
+    }
+
+    private Item save(String name, String description, boolean available) {
+        return em.persist(new Item(null, name, description, available, owner, null, null, null, null));
+    }
+
+    private static List<Long> ids(List<ItemDto> items) {
+        return items.stream().map(ItemDto::getId).collect(Collectors.toList());
+    }
+}
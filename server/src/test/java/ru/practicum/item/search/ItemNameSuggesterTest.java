@@ -0,0 +1,102 @@
+package ru.practicum.item.search;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import ru.practicum.exception.ItemValidationException;
+import ru.practicum.item.ItemRepository;
+import ru.practicum.item.ItemWrittenEvent;
+import ru.practicum.item.model.Item;
+import ru.practicum.user.model.User;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest
+class ItemNameSuggesterTest {
+    @Autowired
+    private TestEntityManager em;
+    @Autowired
+    private ItemRepository itemRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ItemNameSuggester suggester;
+    private User owner;
+    private Item drill;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        suggester = new ItemNameSuggester(itemRepository, meterRegistry, 3);
+        owner = em.persist(new User(null, "Иван Иванов", "ivai@ivanov.ru"));
+        drill = save("Дрель", true);
+        save("дрель", true);
+        save("Дрель-миксер", true);
+        save("Ударная дрель", true);
+        save("Дровокол", true);
+        save("Дрезина", false);
+        save("Стремянка", true);
+        em.flush();
+        suggester.onApplicationReady();
+    }
+
+    @Test
+    void suggest_whenPrefixMatches_thenFrequentNamesFirstThenAlphabetical() {
+        assertEquals(List.of("Дрель", "Дрель-миксер", "Дровокол"), suggester.suggest("ДР", 10));
+        assertEquals(List.of("Дрель", "Дрель-миксер", "Ударная дрель"), suggester.suggest("дрель", 10));
+        assertEquals(List.of("Дрель"), suggester.suggest("др", 1));
+        assertEquals(3, meterRegistry.get("items.suggest").timer().count());
+    }
+
+    @Test
+    void suggest_whenPrefixMissingOrBlank_thenEmpty() {
+        assertEquals(List.of(), suggester.suggest("дрез", 10));
+        assertEquals(List.of(), suggester.suggest("молоток", 10));
+        assertEquals(List.of(), suggester.suggest(" ", 10));
+        assertEquals(List.of("Ударная дрель"), suggester.suggest("  уда", 10));
+    }
+
+    @Test
+    void suggest_whenSizeNotPositive_thenItemValidationException() {
+        assertThrows(ItemValidationException.class, () -> suggester.suggest("др", 0));
+        assertThrows(ItemValidationException.class, () -> suggester.suggest("др", -1));
+    }
+
+    @Test
+    void onItemWritten_whenItemRenamedOrHidden_thenSuggestionsFollowDatabase() {
+        drill.setName("Молоток");
+        em.flush();
+        suggester.onItemWritten(new ItemWrittenEvent(drill.getId()));
+
+        assertEquals(List.of("Молоток"), suggester.suggest("мол", 10));
+        assertEquals(List.of("дрель", "Дрель-миксер", "Дровокол"), suggester.suggest("др", 10));
+
+        drill.setAvailable(false);
+        em.flush();
+        suggester.onItemWritten(new ItemWrittenEvent(drill.getId()));
+
+        assertEquals(List.of(), suggester.suggest("мол", 10));
+    }
+
+    @Test
+    void onItemWritten_whenItemDeleted_thenNameRemoved() {
+        Item stepladder = itemRepository.findAll().stream()
+                .filter(item -> item.getName().equals("Стремянка"))
+                .findFirst()
+                .orElseThrow();
+        em.remove(stepladder);
+        em.flush();
+        suggester.onItemWritten(new ItemWrittenEvent(stepladder.getId()));
+
+        assertEquals(List.of(), suggester.suggest("стр", 10));
+    }
+
+    private Item save(String name, boolean available) {
+        return em.persist(new Item(null, name, "описание", available, owner, null, null, null, null));
+    }
+}
@@ -0,0 +1,98 @@
+package ru.practicum.item.search;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.item.ItemService;
+import ru.practicum.item.ItemWrittenEvent;
+import ru.practicum.item.dto.ItemDto;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ItemSearchCacheTest {
+    @Mock
+    private ItemService itemService;
+    private SimpleMeterRegistry meterRegistry;
+    private ItemSearchCache itemSearchCache;
+
+    private final ItemDto drill = new ItemDto(1L, "Дрель", "питание от сети", true, 0L, null);
+    private final ItemDto screwdriver = new ItemDto(2L, "Дрель-шуруповёрт", "два аккумулятора", true, 0L, null);
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        itemSearchCache = new ItemSearchCache(itemService, meterRegistry, 100, Duration.ofMinutes(10), 10);
+    }
+
+    @Test
+    void search_whenSameQueryInOtherCaseWithSpacesAndSamePage_thenIdsServedFromCache() {
+        when(itemService.getItemsBySearch("дрель", 0, 10)).thenReturn(List.of(drill, screwdriver));
+        when(itemService.getItemsByIds(List.of(1L, 2L))).thenReturn(List.of(drill, screwdriver));
+
+        itemSearchCache.search("  Дрель ", 0, 10);
+        List<ItemDto> actualItems = itemSearchCache.search("дРЕЛЬ", 5, 10);
+
+        assertEquals(List.of(drill, screwdriver), actualItems);
+        verify(itemService, times(1)).getItemsBySearch(anyString(), anyInt(), anyInt());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "itemSearch")
+                .tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void search_whenOnlySpaces_thenNotCached() {
+        when(itemService.getItemsBySearch("", 0, 10)).thenReturn(List.of());
+
+        itemSearchCache.search("   ", 0, 10);
+
+        assertEquals(List.of(), itemSearchCache.getTopQueries(10));
+    }
+
+    @Test
+    void search_whenItemWritten_thenSearchedAgain() {
+        when(itemService.getItemsBySearch("дрель", 0, 10)).thenReturn(List.of(drill));
+
+        itemSearchCache.search("дрель", 0, 10);
+        itemSearchCache.onItemWritten(new ItemWrittenEvent(screwdriver.getId()));
+        itemSearchCache.search("дрель", 0, 10);
+
+        verify(itemService, times(2)).getItemsBySearch("дрель", 0, 10);
+        verify(itemService, never()).getItemsByIds(any());
+    }
+
+    @Test
+    void search_whenItemWrittenDuringSearch_thenResultNotServedLater() {
+        when(itemService.getItemsBySearch("дрель", 0, 10)).thenAnswer(invocation -> {
+            itemSearchCache.onItemWritten(new ItemWrittenEvent(screwdriver.getId()));
+            return List.of(drill);
+        });
+
+        itemSearchCache.search("дрель", 0, 10);
+        itemSearchCache.search("дрель", 0, 10);
+
+        verify(itemService, times(2)).getItemsBySearch("дрель", 0, 10);
+    }
+
+    @Test
+    void getTopQueries_whenQueriesRepeated_thenHitRatioPerQuery() {
+        when(itemService.getItemsBySearch(anyString(), anyInt(), anyInt())).thenReturn(List.of(drill));
+        when(itemService.getItemsByIds(List.of(1L))).thenReturn(List.of(drill));
+
+        for (int i = 0; i < 4; i++) {
+            itemSearchCache.search("дрель", 0, 10);
+        }
+        itemSearchCache.search("пила", 0, 10);
+
+        List<ItemSearchCache.QueryHitRatio> top = itemSearchCache.getTopQueries(10);
+        assertEquals(new ItemSearchCache.QueryHitRatio("дрель", 3, 1), top.get(0));
+        assertEquals(0.75, top.get(0).getHitRatio());
+        assertEquals(new ItemSearchCache.QueryHitRatio("пила", 0, 1), top.get(1));
+    }
+}
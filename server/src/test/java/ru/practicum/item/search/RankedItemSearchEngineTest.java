@@ -0,0 +1,96 @@
+package ru.practicum.item.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.booking.BookingStatus;
+import ru.practicum.booking.model.Booking;
+import ru.practicum.item.ItemRepository;
+import ru.practicum.item.dto.ItemDto;
+import ru.practicum.item.model.Item;
+import ru.practicum.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+class RankedItemSearchEngineTest {
+    @Autowired
+    private TestEntityManager em;
+    @Autowired
+    private ItemRepository itemRepository;
+
+    private RankedItemSearchEngine searchEngine;
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        searchEngine = new RankedItemSearchEngine(itemRepository);
+        owner = em.persist(new User(null, "Иван Иванов", "ivai@ivanov.ru"));
+    }
+
+    @Test
+    void search_whenMatchesDiffer_thenNameBeforeDescriptionAndExactBeforeInfix() {
+        Item infixInDescription = save("Отвёртка", "почти как минидрель", true);
+        Item infixInName = save("Мегадрель", "ударная", true);
+        Item wordInDescription = save("Шуруповёрт", "работает как дрель", true);
+        Item exactName = save("Дрель", "питание от сети", true);
+        Item prefixName = save("дрель аккумуляторная", "два аккумулятора", true);
+        Item wordInName = save("Ударная дрель", "для бетона", true);
+        save("Стремянка", "высота 2 метра", true);
+        save("Дрель-миксер", "сломана", false);
+
+        List<Long> actual = ids(searchEngine.search("ДРЕЛЬ", 0, 10));
+
+        assertEquals(List.of(exactName.getId(), prefixName.getId(), wordInName.getId(), infixInName.getId(),
+                wordInDescription.getId(), infixInDescription.getId()), actual);
+    }
+
+    @Test
+    void search_whenPagedThroughBroadQuery_thenPagesFormOneRankingOverAllMatches() {
+        for (int i = 0; i < 25; i++) {
+            save("вещь " + i, i % 2 == 0 ? "а" : "описание", true);
+        }
+
+        List<ItemDto> all = searchEngine.search("а", 0, 100);
+        List<ItemDto> paged = new ArrayList<>();
+        for (int from = 0; from < 30; from += 7) {
+            paged.addAll(searchEngine.search("а", from, 7));
+        }
+
+        assertEquals(all, paged);
+        assertEquals(Set.copyOf(itemRepository.findAllBySearch("а", Pageable.unpaged()).getContent()),
+                Set.copyOf(all));
+        assertEquals(4, RankedItemSearchEngine.score(all.get(0), "а"));
+    }
+
+    @Test
+    void searchFree_whenBestMatchBooked_thenRankingOverFreeItemsOnly() {
+        LocalDateTime start = LocalDateTime.of(2030, 6, 1, 12, 0);
+        User booker = em.persist(new User(null, "Петр Петров", "petr@petrov.ru"));
+        Item exactName = save("Дрель", "питание от сети", true);
+        Item prefixName = save("дрель аккумуляторная", "два аккумулятора", true);
+        Item wordInDescription = save("Шуруповёрт", "работает как дрель", true);
+        em.persist(new Booking(null, start, start.plusDays(1), exactName, booker, BookingStatus.WAITING));
+
+        List<Long> actual = ids(searchEngine.searchFree("дрель", start.plusHours(1), start.plusHours(2), 0, 10));
+
+        assertEquals(List.of(prefixName.getId(), wordInDescription.getId()), actual);
+    }
+
+    private Item save(String name, String description, boolean available) {
+        return em.persist(new Item(null, name, description, available, owner, null, null, null, null));
+    }
+
+    private static List<Long> ids(List<ItemDto> items) {
+        return items.stream().map(ItemDto::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,121 @@
+package ru.practicum.item.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.practicum.booking.BookingRepository;
+import ru.practicum.booking.BookingStatus;
+import ru.practicum.booking.model.Booking;
+import ru.practicum.item.ItemRepository;
+import ru.practicum.item.dto.ItemDto;
+import ru.practicum.item.model.Item;
+import ru.practicum.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//новый поиск обязан возвращать ровно то же, что и прежний запрос findAllBySearch, страница за страницей
+@DataJpaTest
+class TrigramItemSearchEngineTest {
+    @Autowired
+    private TestEntityManager em;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    private TrigramItemSearchEngine searchEngine;
+    private final LocalDateTime start = LocalDateTime.of(2030, 6, 1, 12, 0);
+
+    @BeforeEach
+    void setUp() {
+        searchEngine = new TrigramItemSearchEngine(jdbcTemplate);
+        User owner = em.persist(new User(null, "Иван Иванов", "ivai@ivanov.ru"));
+        User booker = em.persist(new User(null, "Петр Петров", "petr@petrov.ru"));
+        Item drill = save("Дрель", "питание от сети", true, owner);
+        Item batteryDrill = save("аккумуляторная ДРЕЛЬ", "два аккумулятора и зарядник", true, owner);
+        Item screwdriver = save("Отвёртка", "для мелкого ремонта, похожа на дрель", true, owner);
+        Item perforator = save("Перфоратор Bosch", "18V, без аккумулятора", true, owner);
+        save("дрель-миксер", "сломана", false, owner);
+        save("Стремянка", "высота 2 метра", true, owner);
+        save("bOsCh GSR", "шуруповёрт 18v", true, owner);
+        //окно поиска свободных вещей - [start, start + 2 дня)
+        book(drill, booker, start.minusDays(1), start.plusDays(1), BookingStatus.APPROVED);
+        book(batteryDrill, booker, start.plusDays(1), start.plusDays(5), BookingStatus.WAITING);
+        book(screwdriver, booker, start, start.plusDays(1), BookingStatus.REJECTED);
+        book(screwdriver, booker, start.plusDays(2), start.plusDays(3), BookingStatus.APPROVED);
+        book(perforator, booker, start.minusDays(3), start, BookingStatus.APPROVED);
+        em.flush();
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "дрел, 0, 10",
+            "ДрЕлЬ, 0, 10",
+            "рель, 0, 2",
+            "рель, 2, 2",
+            "bosch, 0, 10",
+            "18v, 0, 10",
+            "аккумулятор, 0, 1",
+            "аккумулятор, 1, 1",
+            "ё, 0, 10",
+            "а, 0, 3",
+            "а, 3, 3",
+            "а, 6, 3",
+            "сломана, 0, 10",
+            "молоток, 0, 10",
+            "' ', 0, 10"
+    })
+    void search_whenComparedWithSubstringQuery_thenSameItemsOnEveryPage(String text, int from, int size) {
+        List<ItemDto> expected = itemRepository.findAllBySearch(text,
+                PageRequest.of(from / size, size, Sort.by("id"))).getContent();
+
+        assertEquals(expected, searchEngine.search(text, from, size));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "дрел, 0, 10",
+            "рель, 0, 1",
+            "рель, 1, 1",
+            "bosch, 0, 10",
+            "а, 0, 2",
+            "а, 2, 2",
+            "молоток, 0, 10"
+    })
+    void searchFree_whenComparedWithAntiJoinQuery_thenSameItemsOnEveryPage(String text, int from, int size) {
+        List<ItemDto> expected = itemRepository.findAllFreeBySearch(text, BookingRepository.OCCUPYING, start,
+                start.plusDays(2), PageRequest.of(from / size, size, Sort.by("id"))).getContent();
+
+        assertEquals(expected, searchEngine.searchFree(text, start, start.plusDays(2), from, size));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "дрель, 1",
+            "bosch, 2"
+    })
+    void searchFree_whenItemsBooked_thenOnlyFreeInWholeWindow(String text, int expectedCount) {
+        //дрель занята подтвержденным бронированием, аккумуляторная - ожидающим; отвёртка отклонена в окне и
+        //свободна, перфоратор освобождается ровно к началу окна
+        List<ItemDto> free = searchEngine.searchFree(text, start, start.plusDays(2), 0, 10);
+
+        assertEquals(expectedCount, free.size());
+    }
+
+    private Item save(String name, String description, boolean available, User owner) {
+        return em.persist(new Item(null, name, description, available, owner, null, null, null, null));
+    }
+
+    private void book(Item item, User booker, LocalDateTime from, LocalDateTime to, BookingStatus status) {
+        em.persist(new Booking(null, from, to, item, booker, status));
+    }
+}
@@ -110,7 +110,7 @@ class ItemRequestControllerTest {
 
     @Test
     void getAll() throws Exception {
-        List<ItemRequest> itemRequests = List.of(requestOne, requestTwo);
+        List<ItemRequestDto> itemRequests = List.of(requestDtoOne, requestDtoTwo);
         when(itemRequestService.getAllRequest(anyLong(), anyInt(), anyInt())).thenReturn(itemRequests);
 
         mvc.perform(get("/requests/all")
@@ -12,6 +12,10 @@ import org.springframework.data.domain.Sort;
 import ru.practicum.exception.ItemRequestNotFoundException;
 import ru.practicum.exception.ItemRequestValidationException;
 import ru.practicum.exception.UserNotFoundException;
+import ru.practicum.item.ItemRepository;
+import ru.practicum.item.dto.ItemDto;
+import ru.practicum.request.dto.ItemRequestDto;
+import ru.practicum.request.dto.ItemRequestMapper;
 import ru.practicum.request.model.ItemRequest;
 import ru.practicum.user.UserRepository;
 import ru.practicum.user.model.User;
@@ -31,13 +35,16 @@ class ItemRequestServiceImplTest {
     private ItemRequestRepository itemRequestRepository;
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private ItemRepository itemRepository;
     @InjectMocks
     private ItemRequestServiceImpl itemRequestService;
 
     @Test
     void create_whenItemRequestValid_thenSavedItemRequest() {
         User requestor = new User(0L, "Иван Иванов", "ivai@ivanov.ru");
-        when(userRepository.findById(requestor.getId())).thenReturn(Optional.of(requestor));
+        when(userRepository.existsById(requestor.getId())).thenReturn(true);
+        when(userRepository.getReferenceById(requestor.getId())).thenReturn(requestor);
 
         ItemRequest savedRequest = new ItemRequest(0L, "срочно нужен аккумуляторный шуруповерт",
                 requestor, LocalDateTime.now());
@@ -63,7 +70,7 @@ class ItemRequestServiceImplTest {
     @Test
     void getAllMineRequests_whenUserFound_thenRequestsReturn() {
         User requestor = new User(0L, "Иван Иванов", "ivai@ivanov.ru");
-        when(userRepository.findById(requestor.getId())).thenReturn(Optional.of(requestor));
+        when(userRepository.existsById(requestor.getId())).thenReturn(true);
 
         ItemRequest festRequest = new ItemRequest(0L, "срочно нужен аккумуляторный шуруповерт",
                 requestor, LocalDateTime.now().minusDays(3));
@@ -78,7 +85,7 @@ class ItemRequestServiceImplTest {
         expectedItemRequests.add(thirdRequest);
 
         Sort sortByCreated = Sort.by(Sort.Direction.DESC, "created");
-        when(itemRequestRepository.findByRequestor(requestor, sortByCreated)).thenReturn(expectedItemRequests);
+        when(itemRequestRepository.findByRequestorId(requestor.getId(), sortByCreated)).thenReturn(expectedItemRequests);
         List<ItemRequest> actualItemRequests = itemRequestService.getAllMineRequests(requestor.getId());
         assertEquals(expectedItemRequests, actualItemRequests);
     }
@@ -86,32 +93,36 @@ class ItemRequestServiceImplTest {
     @Test
     void getAllMineRequests_whenUserNotFound_thenUserNotFoundException() {
         long id = 0L;
-        when(userRepository.findById(id)).thenReturn(Optional.empty());
+        when(userRepository.existsById(id)).thenReturn(false);
         assertThrows(UserNotFoundException.class, () -> itemRequestService.getAllMineRequests(id));
     }
 
     @Test
     void getAllRequest_whenUserFound_thenListRequestsReturn() {
         User requestor = new User(0L, "Иван Иванов", "ivai@ivanov.ru");
-        when(userRepository.findById(requestor.getId())).thenReturn(Optional.of(requestor));
+        when(userRepository.existsById(requestor.getId())).thenReturn(true);
 
         ItemRequest festRequest = new ItemRequest(0L, "срочно нужен аккумуляторный шуруповерт",
                 requestor, LocalDateTime.now());
         ItemRequest secondRequest = new ItemRequest(1L, "ищу перфоратор",
                 requestor, LocalDateTime.now());
 
-        List<ItemRequest> expectedItemRequests = new ArrayList<>();
-        expectedItemRequests.add(festRequest);
-        expectedItemRequests.add(secondRequest);
+        List<ItemRequestDto> expectedItemRequests = ItemRequestMapper.toItemRequestDtoList(
+                List.of(festRequest, secondRequest));
+        ItemDto answer = new ItemDto(3L, "перфоратор", "с набором буров", true, 2L, secondRequest.getId());
+        when(itemRepository.findByRequestIdIn(List.of(festRequest.getId(), secondRequest.getId())))
+                .thenReturn(List.of(answer));
 
         Sort sortByCreated = Sort.by(Sort.Direction.DESC, "created");
         Pageable pageable = PageRequest.of(0, 20, sortByCreated);
-        when((itemRequestRepository.findAllByRequestorNot(requestor, pageable)))
+        when((itemRequestRepository.findAllByRequestorIdNot(requestor.getId(), pageable)))
                 .thenReturn(new PageImpl<>(expectedItemRequests));
 
-        List<ItemRequest> actualRequests = itemRequestService.getAllRequest(requestor.getId(), 0, 20);
+        List<ItemRequestDto> actualRequests = itemRequestService.getAllRequest(requestor.getId(), 0, 20);
 
         assertEquals(expectedItemRequests, actualRequests);
+        assertEquals(List.of(), actualRequests.get(0).getItems());
+        assertEquals(List.of(answer), actualRequests.get(1).getItems());
     }
 
     @Test
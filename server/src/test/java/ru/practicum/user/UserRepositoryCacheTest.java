@@ -0,0 +1,74 @@
+package ru.practicum.user;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import ru.practicum.user.model.User;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestPropertySource(locations = "classpath:application-test.properties")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class UserRepositoryCacheTest {
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    private Statistics statistics;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        user = userRepository.save(new User(null, "Иван Иванов", "ivai@ivanov.ru"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    void findById_whenUserCached_thenDatabaseNotQueried() {
+        userRepository.findById(user.getId());
+        statistics.clear();
+
+        assertTrue(userRepository.findById(user.getId()).isPresent());
+        assertTrue(userRepository.existsById(user.getId()));
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    void existsById_whenUserNotCached_thenExistsQueryWithoutLoading() {
+        entityManagerFactory.getCache().evict(User.class);
+        statistics.clear();
+
+        assertTrue(userRepository.existsById(user.getId()));
+        assertFalse(userRepository.existsById(user.getId() + 1000));
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void findByEmail_whenQueryRepeated_thenServedFromQueryCache() {
+        userRepository.findByEmail(user.getEmail());
+        statistics.clear();
+
+        assertEquals(user.getId(), userRepository.findByEmail(user.getEmail()).orElseThrow().getId());
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+    }
+}